@@ -1,5 +1,12 @@
 package Hooks;
 
+import TestManagers.ApiManager;
+import TestManagers.CapabilityManager;
+import TestManagers.CommandLatencyRecorder;
+import TestManagers.HttpConnectionManager;
+import TestManagers.LocalBrowserPool;
+import TestManagers.RemoteDriverPool;
+import TestManagers.TunnelPool;
 import automationHelper.AutomationAPIHelper;
 import com.mysql.cj.util.StringUtils;
 import io.cucumber.core.backend.TestCaseState;
@@ -11,11 +18,15 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import reportingHelper.TestFailureReportManager;
 import utility.BaseClass;
+import utility.LatencyHistogram;
+import utility.Poller;
+import utility.PortAllocator;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -42,6 +53,18 @@ public class Hooks extends BaseClass {
         TEST_SCENARIO_NAME.set(scenario.getName());
     }
 
+    /// Scenarios opt in to warm sessions by tag, session creation scenarios keep measuring cold starts
+    @Before(order = 2, value = "@warm_session_pool")
+    public void beforeWarmSessionPoolScenario() {
+        IS_WARM_SESSION_POOL_ENABLED.set(true);
+    }
+
+    /// Scenarios opt in to pooled tunnels by tag, tunnel lifecycle scenarios keep a dedicated tunnel
+    @Before(order = 2, value = "@shared_tunnel")
+    public void beforeSharedTunnelScenario() {
+        IS_SHARED_TUNNEL_ENABLED.set(true);
+    }
+
     @Before(order = 2, value = "@tunnel_regression")
     public void beforeTunnelRegression() {
         ltLogger.info("Executing bash script for updating local hosts mapping");
@@ -194,6 +217,22 @@ public class Hooks extends BaseClass {
         TEST_REPORT.get().put("hub", testGridUrl.get());
         TEST_REPORT.get().put("test_status", testStatus);
         TEST_REPORT.get().put("client_test_status", IS_UI_VERIFICATION_ENABLED.get() ? clientTestStatus : "NA");
+        TEST_REPORT.get().put("http_connection_pool_metrics", HttpConnectionManager.getPoolMetrics());
+        TEST_REPORT.get().put("session_details_cache_metrics", AutomationAPIHelper.getSessionDetailsCacheMetrics());
+        TEST_REPORT.get().put("test_details_cache_metrics", AutomationAPIHelper.getTestDetailsCacheMetrics());
+        TEST_REPORT.get().put("capability_template_cache_metrics", CapabilityManager.getCapabilityTemplateCacheMetrics());
+        if (Boolean.TRUE.equals(IS_WARM_SESSION_POOL_ENABLED.get()))
+            TEST_REPORT.get().put("warm_session_pool_metrics", RemoteDriverPool.getMetrics());
+        if (Boolean.TRUE.equals(IS_SHARED_TUNNEL_ENABLED.get()))
+            TEST_REPORT.get().put("tunnel_pool_metrics", TunnelPool.getMetrics());
+        if (TEST_TUNNEL_NAME.get() != null)
+            TEST_REPORT.get().put("port_allocator_metrics", PortAllocator.getMetrics());
+        if (TEST_ENV.equalsIgnoreCase("local") && Boolean.getBoolean(LOCAL_BROWSER_REUSE))
+            TEST_REPORT.get().put("local_browser_pool_metrics", LocalBrowserPool.getMetrics());
+        TEST_REPORT.get().put("poller_metrics", Poller.getMetrics());
+        TEST_REPORT.get().put("session_startup_histograms", LatencyHistogram.getMetrics(SESSION_STARTUP_HISTOGRAM_PREFIX));
+        TEST_REPORT.get().put("run_command_latency", CommandLatencyRecorder.getRunSummary());
+        TEST_REPORT.get().put("tunnel_histograms", LatencyHistogram.getMetrics(TUNNEL_HISTOGRAM_PREFIX));
     }
 
     private void printTestDashboardAndRetinaLinks(Scenario scenario, String testEnv) {
@@ -308,7 +347,11 @@ public class Hooks extends BaseClass {
 
     private void closeAllActiveDrivers() {
         try {
-            testDriver.get().quit();
+            // A local browser leased for reuse is reset for the next scenario instead of quit
+            if (LocalBrowserPool.isLeased(testDriver.get()))
+                LocalBrowserPool.release(testDriver.get());
+            else
+                testDriver.get().quit();
         } catch (Exception ignored) {
             // Driver quit failure can be safely ignored
         }
@@ -321,17 +364,33 @@ public class Hooks extends BaseClass {
     }
 
     private void updateLTTestStatus() {
-        if (!StringUtils.isNullOrEmpty(TEST_SESSION_ID.get()) && COMPLETED.equalsIgnoreCase(
-                apiHelper.getStatusOfSessionViaAPI(TEST_SESSION_ID.get()))) {
+        // Test and client sessions are independent, so their status lookups and updates are fanned out together
+        CompletableFuture<String> testSessionStatus = StringUtils.isNullOrEmpty(TEST_SESSION_ID.get()) ?
+                CompletableFuture.completedFuture(null) :
+                apiHelper.getStatusOfSessionViaAPIAsync(TEST_SESSION_ID.get());
+        CompletableFuture<String> clientSessionStatus = StringUtils.isNullOrEmpty(CLIENT_SESSION_ID.get()) ?
+                CompletableFuture.completedFuture(null) :
+                apiHelper.getStatusOfSessionViaAPIAsync(CLIENT_SESSION_ID.get(), true);
+
+        List<CompletableFuture<Void>> statusUpdates = new ArrayList<>();
+        if (COMPLETED.equalsIgnoreCase(ApiManager.joinUnwrapped(testSessionStatus))) {
             ltLogger.warn("Test status: {}, Test Error message: {}", testStatus, errorMessage);
-            setTestStatus(TEST_SESSION_ID.get(), testStatus, errorMessage);
+            String testSessionId = TEST_SESSION_ID.get();
+            statusUpdates.add(apiHelper.supplyAsync(() -> {
+                setTestStatus(testSessionId, testStatus, errorMessage);
+                return null;
+            }));
         }
 
-        if (!StringUtils.isNullOrEmpty(CLIENT_SESSION_ID.get()) && COMPLETED.equalsIgnoreCase(
-                apiHelper.getStatusOfSessionViaAPI(CLIENT_SESSION_ID.get(), true))) {
+        if (COMPLETED.equalsIgnoreCase(ApiManager.joinUnwrapped(clientSessionStatus))) {
             ltLogger.warn("Client test status: {}, Client Test Error message: {}", clientTestStatus, clientTestErrorMessage);
-            setTestStatus(CLIENT_SESSION_ID.get(), clientTestStatus, clientTestErrorMessage, true);
+            String clientSessionId = CLIENT_SESSION_ID.get();
+            statusUpdates.add(apiHelper.supplyAsync(() -> {
+                setTestStatus(clientSessionId, clientTestStatus, clientTestErrorMessage, true);
+                return null;
+            }));
         }
+        ApiManager.joinUnwrapped(CompletableFuture.allOf(statusUpdates.toArray(CompletableFuture<?>[]::new)));
     }
 
     private void handleTestDataForSumoLogic() {
@@ -348,6 +407,7 @@ public class Hooks extends BaseClass {
     @After(order = 1)
     public void afterScenario(Scenario scenario) {
         closeAllActiveDrivers();
+        TunnelPool.releaseLeasesOfCurrentThread();
 
         apiHelper.waitForTime(5);
 
@@ -376,11 +436,6 @@ public class Hooks extends BaseClass {
         put("TEST_REPORT", TEST_REPORT);
         put("TEST_VERIFICATION_DATA", TEST_VERIFICATION_DATA);
         put("MULTIPLE_TEST_VERIFICATION_DATA", MULTIPLE_TEST_VERIFICATION_DATA);
-        put("TEST_DETAIL_API_RESPONSE", TEST_DETAIL_API_RESPONSE);
-        put("TEST_FEATURE_FLAG_DETAILS", TEST_FEATURE_FLAG_DETAILS);
-        put("SESSION_COMMAND_LOGS_COUNT_FROM_TEST_API", SESSION_COMMAND_LOGS_COUNT_FROM_TEST_API);
-        put("SESSION_EXCEPTION_LOGS_COUNT_FROM_TEST_API", SESSION_EXCEPTION_LOGS_COUNT_FROM_TEST_API);
-        put("SESSION_VISUAL_LOGS_COUNT_FROM_TEST_API", SESSION_VISUAL_LOGS_COUNT_FROM_TEST_API);
         put("TEST_TUNNEL_NAME", TEST_TUNNEL_NAME);
         put("TEST_TUNNEL_ID", TEST_TUNNEL_ID);
         put("BUILD_ID", BUILD_ID);
@@ -388,6 +443,8 @@ public class Hooks extends BaseClass {
         put("ASSERTION_ERROR_TO_HASH_KEY_MAP", ASSERTION_ERROR_TO_HASH_KEY_MAP);
         put("FAILED_ASSERTION_ERROR_TO_HASH_KEY_MAP", FAILED_ASSERTION_ERROR_TO_HASH_KEY_MAP);
         put("TEST_SESSION_ID_QUEUE", TEST_SESSION_ID_QUEUE);
+        put("IS_WARM_SESSION_POOL_ENABLED", IS_WARM_SESSION_POOL_ENABLED);
+        put("IS_SHARED_TUNNEL_ENABLED", IS_SHARED_TUNNEL_ENABLED);
         put("CLIENT_TEST_SESSION_ID_QUEUE", CLIENT_TEST_SESSION_ID_QUEUE);
     }};
 
@@ -115,7 +115,10 @@ public class TestCommandLogsPage extends LTDashboardCommonActions {
     private List<String> searchForItemsAndCollectMissing(Collection<String> items) {
         List<String> notFoundItems = new ArrayList<>();
 
-        for (String item : items) {
+        // One scroll through the whole command list finds most items, only the rest are searched one by one
+        List<String> itemsMissingInCommandList = driver.findMissingTexts(commandPreviewValue, items,
+                commandLogsVirtualizedList);
+        for (String item : itemsMissingInCommandList) {
             clearSearchBarIfNeeded();
             performCommandLogsSearch(item);
 
@@ -6,7 +6,9 @@ import factory.LocatorTypes;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import utility.CustomSoftAssert;
+import utility.Poller;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -79,18 +81,17 @@ public class TestConsoleLogsPage extends LTDashboardCommonActions {
             return;
         }
         List<String> expectedConsoleLogs = constructExpectedConsoleLogMessage();
-        String consoleLogsPresentInDashboard = "";
-        for (int i = 1; i <= retryCount; i++) {
-            ltLogger.info("Trying to extract console logs from UI. Attempt: {}", i);
+        String consoleLogsPresentInDashboard = Poller.poll("console_logs_ui", () -> {
             try {
-                consoleLogsPresentInDashboard = driver.getText(consoleLogsRowsContainer, 5);
-                break;
+                return driver.getText(consoleLogsRowsContainer, 5);
             } catch (Exception e) {
                 ltLogger.error("Failed to extract console logs from dashboard. Error: {}", e.getMessage());
                 driver.refreshPage();
-                waitForTime(5);
+                throw e;
             }
-        }
+        }).initialDelay(Duration.ofSeconds(1)).maxDelay(Duration.ofSeconds(5)).maxAttempts(retryCount)
+                .timeout(Duration.ofSeconds(5L * retryCount)).run().value();
+        consoleLogsPresentInDashboard = consoleLogsPresentInDashboard == null ? "" : consoleLogsPresentInDashboard;
         List<String> notFoundConsoleLogs = new ArrayList<>();
         for (String consoleLog : expectedConsoleLogs) {
             ltLogger.info("Searching for console log: {}", consoleLog);
@@ -9,10 +9,7 @@ import org.openqa.selenium.WebElement;
 import utility.CustomSoftAssert;
 import utility.FrameworkConstants;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Queue;
+import java.util.*;
 
 import static factory.SoftAssertionMessages.*;
 import static utility.EnvSetup.TEST_VERIFICATION_DATA;
@@ -38,6 +35,8 @@ public class TestNetworkLogsPage extends LTDashboardCommonActions {
             "input[aria-label='Search Network Logs']");
     private static final Locator networkLogsRowName = new Locator(LocatorTypes.CSS,
             "tr[id*='network-log-row']>td[class*='NetworkTableHeader-styles__filename'] span");
+    private static final LinkedHashMap<String, String> networkLogsTableColumns = new LinkedHashMap<>(
+            Map.of("name", "td[class*='NetworkTableHeader-styles__filename'] span"));
 
     public boolean openNetworkLogsTab() {
         navigateToHomePageOfSpecificTest();
@@ -68,7 +67,14 @@ public class TestNetworkLogsPage extends LTDashboardCommonActions {
     private List<String> searchForItemsAndCollectMissing(Collection<String> items) {
         List<String> notFoundItems = new ArrayList<>();
 
-        for (String item : items) {
+        // Rows already listed with the full url are matched in one go. A row named by host or path only could belong
+        // to any url, so those items are still searched one by one
+        Set<String> networkLogNames = new HashSet<>();
+        driver.extractTableRows(networkLogsRows, networkLogsTableColumns).stream().map(row -> row.get("name"))
+                .filter(name -> name != null && !name.isEmpty()).map(this::normalizeUrl).forEach(networkLogNames::add);
+        List<String> itemsMissingInNetworkLogs = items.stream()
+                .filter(item -> !networkLogNames.contains(normalizeUrl(item))).toList();
+        for (String item : itemsMissingInNetworkLogs) {
             driver.clearTextUsingKeyboardForWindows(networkLogsSearchInput);
             performNetworkLogsSearch(item);
 
@@ -81,6 +87,11 @@ public class TestNetworkLogsPage extends LTDashboardCommonActions {
         return notFoundItems;
     }
 
+    private String normalizeUrl(String url) {
+        String normalizedUrl = url.trim();
+        return normalizedUrl.endsWith("/") ? normalizedUrl.substring(0, normalizedUrl.length() - 1) : normalizedUrl;
+    }
+
     private void performNetworkLogsSearch(String searchTerm) {
         ltLogger.info("Performing command search for network logs: {}", searchTerm);
         driver.sendKeys(networkLogsSearchInput, searchTerm);
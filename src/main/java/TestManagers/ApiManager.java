@@ -1,6 +1,7 @@
 package TestManagers;
 
 import io.restassured.RestAssured;
+import io.restassured.config.RestAssuredConfig;
 import io.restassured.http.ContentType;
 import io.restassured.http.Method;
 import io.restassured.response.Response;
@@ -24,14 +25,31 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import static utility.FrameworkConstants.*;
 
 public abstract class ApiManager extends BaseClass {
     private final Logger ltLogger = LogManager.getLogger(ApiManager.class);
 
+    /// Scenario data helpers read from EnvSetup, handed to the async workers
+    private static final List<ThreadLocal<?>> SCENARIO_THREAD_LOCALS = List.of(EnvSetup.testUserName,
+            EnvSetup.testAccessKey, EnvSetup.clientTestUserName, EnvSetup.clientTestAccessKey, EnvSetup.testEmail,
+            EnvSetup.testPassword, EnvSetup.testGridUrl, EnvSetup.SOFT_ASSERT, EnvSetup.CLIENT_SOFT_ASSERT,
+            EnvSetup.TEST_REPORT, EnvSetup.TEST_VERIFICATION_DATA, EnvSetup.TEST_CAPS_MAP, EnvSetup.TEST_SESSION_ID,
+            EnvSetup.TEST_TEST_ID, EnvSetup.CLIENT_SESSION_ID, EnvSetup.BUILD_ID);
+
+    /// Async requests run on virtual threads, actual concurrency per host is bounded by the shared connection pool
+    private static final ExecutorService asyncRequestExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("api-async-", 0).factory());
+
     public String constructAPIUrl(String uriBase, String endpoint, String... sessionDetails) {
         // In sessionDetails, first param should always be session id and then the session API end points
         int sessionDetailsLength = sessionDetails.length;
@@ -52,6 +70,11 @@ public abstract class ApiManager extends BaseClass {
         return constructAPIUrl(uriBaseWithBasicAuth, endpoint, sessionDetails);
     }
 
+    private static final Map<String, BiFunction<RequestSpecification, String, Response>> methodMap = Map.of(GET,
+            RequestSpecification::get, POST, RequestSpecification::post, PUT, RequestSpecification::put, DELETE,
+            RequestSpecification::delete, PATCH, RequestSpecification::patch, GET_REDIRECT,
+            (r, uri) -> r.redirects().follow(false).get(uri));
+
     private Response httpMethod(String method, String uri, Object body, ContentType contentType,
                                 Map<String, Object> headers, Map<String, Object> queryParam, int expectedStatus, String... basicAuthHeaders) {
 
@@ -62,6 +85,13 @@ public abstract class ApiManager extends BaseClass {
                 "Hitting Method: {} on URI: {} with Body: {}, Headers: {}, Query Param: {}, Content Type: {}, Expected Status is: {}, Username is: {} and Password is: {}",
                 method, uri, body, headers, queryParam, contentType, expectedStatus, username, password);
 
+        String httpMethodName = method.replace("_WITHOUT_STATUS_CODE_VERIFICATION", "");
+        BiFunction<RequestSpecification, String, Response> action = methodMap.get(httpMethodName);
+        if (action == null) {
+            throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+        }
+
+        HttpConnectionManager.RequestTarget requestTarget = HttpConnectionManager.extractCredentialsFromUri(uri);
         if (!username.isEmpty() || !password.isEmpty()) {
             if (headers == null) {
                 headers = new HashMap<>();
@@ -70,31 +100,31 @@ public abstract class ApiManager extends BaseClass {
             ltLogger.info("Encoded Auth Headers: {}", encodedAuth);
             headers.put("Authorization", "Basic " + encodedAuth);
             ltLogger.info("Updated Request Headers: {}", headers);
+        } else if (requestTarget.basicAuthHeader() != null) {
+            headers = headers == null ? new HashMap<>() : new HashMap<>(headers);
+            headers.put("Authorization", requestTarget.basicAuthHeader());
         }
 
-        RequestSpecification req = RestAssured.given().headers(headers != null ? headers : Map.of())
-                .queryParams(queryParam != null ? queryParam : Map.of())
+        // Redirect handling is a client level param, so those requests don't use the shared pooled client
+        RestAssuredConfig restAssuredConfig = GET_REDIRECT.equals(httpMethodName) ?
+                HttpConnectionManager.isolatedConfig() :
+                HttpConnectionManager.pooledConfig();
+
+        RequestSpecification req = RestAssured.given().config(restAssuredConfig).filter(HttpConnectionManager.requestCounter())
+                .headers(headers != null ? headers : Map.of()).queryParams(queryParam != null ? queryParam : Map.of())
                 .contentType(contentType != null ? contentType : ContentType.JSON);
 
         // Handle multipart requests
         if (contentType == ContentType.MULTIPART && body instanceof RequestSpecification) {
-            req = ((RequestSpecification) body).headers(headers != null ? headers : Map.of());
+            req = ((RequestSpecification) body).config(restAssuredConfig).filter(HttpConnectionManager.requestCounter())
+                    .headers(headers != null ? headers : Map.of());
         } else {
             req.body(body != null ? body : "");
         }
 
         boolean verifyStatusCode = !method.endsWith("_WITHOUT_STATUS_CODE_VERIFICATION");
 
-        Map<String, Function<RequestSpecification, Response>> methodMap = Map.of(GET, r -> r.get(uri), POST,
-                r -> r.post(uri), PUT, r -> r.put(uri), DELETE, r -> r.delete(uri), PATCH, r -> r.patch(uri), GET_REDIRECT,
-                r -> r.redirects().follow(false).get(uri));
-
-        Function<RequestSpecification, Response> action = methodMap.getOrDefault(
-                method.replace("_WITHOUT_STATUS_CODE_VERIFICATION", ""), reqType -> {
-                    throw new IllegalArgumentException("Unsupported HTTP method: " + method);
-                });
-
-        Response response = action.apply(req);
+        Response response = action.apply(req, requestTarget.uri());
         if (verifyStatusCode) {
             response.then().statusCode(expectedStatus);
         }
@@ -119,7 +149,7 @@ public abstract class ApiManager extends BaseClass {
     }
 
     public Response postRequestWithURLEncoding(String uri, Object body) {
-        return RestAssured.given().body(body).contentType(ContentType.JSON).urlEncodingEnabled(false).post(uri).then()
+        return RestAssured.given().config(HttpConnectionManager.pooledConfig()).filter(HttpConnectionManager.requestCounter()).body(body).contentType(ContentType.JSON).urlEncodingEnabled(false).post(uri).then()
                 .statusCode(200).extract().response();
     }
 
@@ -294,10 +324,17 @@ public abstract class ApiManager extends BaseClass {
 
     public String downloadFileFromUrlAndExtractContentAsString(String uri, String desiredFileName, String directory) {
         CustomSoftAssert softAssert = EnvSetup.SOFT_ASSERT.get();
+        String logsFromDownloadedFile = downloadFileAndExtractContent(uri, desiredFileName, directory);
+        softAssert.assertTrue(logsFromDownloadedFile != null, "File not downloaded");
+        return logsFromDownloadedFile;
+    }
+
+    /// Same as downloadFileFromUrlAndExtractContentAsString but without soft assertions, so it is safe to call off the
+    /// scenario thread. Returns null if the file could not be downloaded.
+    public String downloadFileAndExtractContent(String uri, String desiredFileName, String directory) {
         uri = uri.replace(" ", "%20");
         ltLogger.info("Downloading file from URI: {} , with name: {} , in directory: {}", uri, desiredFileName, directory);
         boolean fileDownloadStatus = downloadFile(uri, desiredFileName, directory);
-        softAssert.assertTrue(fileDownloadStatus, "File not downloaded");
         if (fileDownloadStatus) {
             String logsData;
             try {
@@ -330,4 +367,66 @@ public abstract class ApiManager extends BaseClass {
         ltLogger.info("Extracted cookies: {}", cookies);
         return cookies;
     }
+
+    /// Runs the supplier on the async executor with the scenario data of the calling thread. The worker gets the same
+    /// objects, not copies, so soft assertions and test report entries made there belong to the scenario. Callers join
+    /// before they use that data again on the scenario thread.
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        List<Object> scenarioValues = SCENARIO_THREAD_LOCALS.stream().<Object>map(ThreadLocal::get).toList();
+        return CompletableFuture.supplyAsync(() -> {
+            for (int i = 0; i < SCENARIO_THREAD_LOCALS.size(); i++) {
+                setThreadLocal(SCENARIO_THREAD_LOCALS.get(i), scenarioValues.get(i));
+            }
+            try {
+                return supplier.get();
+            } finally {
+                SCENARIO_THREAD_LOCALS.forEach(ThreadLocal::remove);
+            }
+        }, asyncRequestExecutor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setThreadLocal(ThreadLocal<T> threadLocal, Object value) {
+        threadLocal.set((T) value);
+    }
+
+    /// Joins the future and rethrows the failure of the async call itself instead of the CompletionException wrapping it
+    public static <T> T joinUnwrapped(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e.getCause() instanceof RuntimeException runtimeException ?
+                    runtimeException :
+                    new RuntimeException(e.getCause());
+        }
+    }
+
+    public CompletableFuture<Response> getRequestAsync(String uri) {
+        return supplyAsync(() -> getRequest(uri));
+    }
+
+    public CompletableFuture<String> getRequestAsStringAsync(String uri) {
+        return supplyAsync(() -> getRequestAsString(uri));
+    }
+
+    public CompletableFuture<Response> getRequestWithBasicAuthAsync(String uri, String username, String password) {
+        return supplyAsync(() -> getRequestWithBasicAuth(uri, username, password));
+    }
+
+    public CompletableFuture<String> getRequestWithBasicAuthAsStringAsync(String uri, String userName,
+                                                                          String password) {
+        return supplyAsync(() -> getRequestWithBasicAuthAsString(uri, userName, password));
+    }
+
+    public CompletableFuture<Response> postRequestWithBasicAuthAsync(String uri, Object body, String username,
+                                                                    String password) {
+        return supplyAsync(() -> postRequestWithBasicAuth(uri, body, username, password));
+    }
+
+    public CompletableFuture<Boolean> downloadFileAsync(String uri, String desiredFileName, String filePath,
+                                                        int... expectedRetryCount) {
+        return supplyAsync(() -> downloadFile(uri, desiredFileName, filePath, expectedRetryCount));
+    }
 }
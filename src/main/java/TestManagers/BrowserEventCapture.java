@@ -0,0 +1,95 @@
+package TestManagers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.bidi.module.LogInspector;
+import org.openqa.selenium.bidi.module.Network;
+import org.openqa.selenium.bidi.network.BaseParameters;
+import utility.RingBuffer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Streams network and console events of a session over WebDriver BiDi into bounded in memory buffers, so the
+/// artefacts uploaded by the cloud can be compared with what the browser actually did.
+/// The session must be created with the `webSocketUrl` capability.
+public final class BrowserEventCapture implements AutoCloseable {
+    private final Logger ltLogger = LogManager.getLogger(BrowserEventCapture.class);
+
+    private final Network network;
+    private final LogInspector logInspector;
+    private final RingBuffer<NetworkEvent> networkEvents;
+    private final RingBuffer<ConsoleEvent> consoleEvents;
+    private final LongAdder requestsSent = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+
+    /// `status` is 0 for requests which failed without a response
+    public record NetworkEvent(String method, String url, int status, String mimeType, boolean isNavigation,
+                               String errorText, long timestamp) {
+    }
+
+    public record ConsoleEvent(String level, String text, long timestamp) {
+    }
+
+    public BrowserEventCapture(WebDriver driver, int capacity) {
+        this.networkEvents = new RingBuffer<>(capacity);
+        this.consoleEvents = new RingBuffer<>(capacity);
+        this.network = new Network(driver);
+        this.logInspector = new LogInspector(driver);
+        network.onBeforeRequestSent(request -> requestsSent.increment());
+        network.onResponseCompleted(response -> networkEvents.add(
+                new NetworkEvent(response.getRequest().getMethod(), response.getResponseData().getUrl(),
+                        response.getResponseData().getStatus(), response.getResponseData().getMimeType(),
+                        isNavigation(response), null, response.getTimestamp())));
+        network.onFetchError(error -> {
+            failedRequests.increment();
+            networkEvents.add(new NetworkEvent(error.getRequest().getMethod(), error.getRequest().getUrl(), 0, null,
+                    isNavigation(error), error.getErrorText(), error.getTimestamp()));
+        });
+        logInspector.onConsoleEntry(entry -> consoleEvents.add(
+                new ConsoleEvent(entry.getLevel().toString(), entry.getText(), entry.getTimestamp())));
+        ltLogger.info("Browser event capture started with buffer capacity: {}", capacity);
+    }
+
+    private static boolean isNavigation(BaseParameters event) {
+        return event.getNavigationId() != null;
+    }
+
+    public List<NetworkEvent> getNetworkEvents() {
+        return networkEvents.snapshot();
+    }
+
+    /// Responses and failures of top level document requests, the ones started by navigating to a url
+    public List<NetworkEvent> getNavigationEvents() {
+        return networkEvents.snapshot().stream().filter(NetworkEvent::isNavigation).toList();
+    }
+
+    public List<ConsoleEvent> getConsoleEvents() {
+        return consoleEvents.snapshot();
+    }
+
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests_sent", requestsSent.sum());
+        summary.put("failed_requests", failedRequests.sum());
+        summary.put("network_events", networkEvents.size());
+        summary.put("console_events", consoleEvents.size());
+        summary.put("dropped_network_events", networkEvents.getDroppedCount());
+        summary.put("dropped_console_events", consoleEvents.getDroppedCount());
+        return summary;
+    }
+
+    @Override
+    public void close() {
+        for (AutoCloseable module : new AutoCloseable[]{network, logInspector}) {
+            try {
+                module.close();
+            } catch (Exception e) {
+                ltLogger.warn("Unable to stop browser event capture: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package TestManagers;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mysql.cj.util.StringUtils;
 import factory.BrowserType;
 import lombok.NonNull;
@@ -16,11 +14,14 @@ import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.safari.SafariOptions;
 import utility.BaseClass;
 import utility.EnvSetup;
+import utility.SingleFlightCache;
 
-import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static utility.EnvSetup.*;
 import static utility.FrameworkConstants.*;
@@ -35,7 +36,9 @@ import static utility.FrameworkConstants.*;
  */
 public class CapabilityManager extends BaseClass {
     private final Logger ltLogger = LogManager.getLogger(CapabilityManager.class);
-    private final String[] randomValueSupportedCaps = new String[]{"geoLocation", "resolution", "version", "timezone"};
+    private static final List<String> RANDOM_VALUE_SUPPORTED_CAPS = List.of("geoLocation", "resolution", "version",
+            "timezone", "selenium_version");
+    static final String RANDOM_VALUE = ".*";
     static final String RANDOM_VALUE_IDENTIFIER = "_randomName$";
     static final String MAX_LENGTH_IDENTIFIER = "_MAX_LENGTH$";
     static final Pattern RANDOM_VALUE_PATTERN = Pattern.compile(RANDOM_VALUE_IDENTIFIER, Pattern.CASE_INSENSITIVE);
@@ -45,9 +48,18 @@ public class CapabilityManager extends BaseClass {
     static final Map<String, Integer> CAPS_NAME_TO_MAX_ARRAY_SIZE_MAP = Map.of(TEST_TAGS, 10, BUILD_TAGS, 5);
     static final int RANDOM_NAME_LENGTH = 10;
 
+    /// Parsed capability strings shared by all scenarios, the feature files reuse the same strings across many examples
+    private static final SingleFlightCache<String, CapabilityTemplate> capabilityTemplates = new SingleFlightCache<>(
+            "capability_templates", Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
     MutableCapabilities capabilities;
     String capsString;
 
+    /// Capability string parsed and validated once. The map and its nested values are read only, every scenario fills
+    /// the dynamic values into its own copy.
+    private record CapabilityTemplate(Map<String, Object> capabilityMap, String capsString) {
+    }
+
     private void createTestCaps(Map<String, Object> capsHash, CapsType capsType, String capabilityRootName) {
         if (capsType == CapsType.FIRST_MATCH) {
             String browserName = capsHash.get("browserName").toString();
@@ -277,11 +289,11 @@ public class CapabilityManager extends BaseClass {
         handleSpecialCasesForBrowserOptions(capabilityMap);
     }
 
-    private void removeSpecificCaps(Map<String, Object> capsMap, String envVariable) {
+    private String removeSpecificCaps(Map<String, Object> capsMap, String capsString, String envVariable) {
         String capsToRemove = System.getProperty(envVariable, "NA");
         ltLogger.info("Removing specific caps: {}", capsToRemove);
         if (capsToRemove.equals("NA"))
-            return;
+            return capsString;
         String[] capsToRemoveArray = capsToRemove.split(",");
         for (String capToRemove : capsToRemoveArray) {
             String regex = "(CAPABILITY_NAME=[^,]+(,|$))".replace("CAPABILITY_NAME", capToRemove);
@@ -290,11 +302,12 @@ public class CapabilityManager extends BaseClass {
         }
         ltLogger.info("Updated caps map and string after removing {}, caps string: {}, caps map: {}", capsToRemove,
                 capsString, capsMap);
+        return capsString;
     }
 
     private void setRandomValue(Map<String, Object> capabilityMap) {
         String jobPurpose = System.getProperty(JOB_PURPOSE, "");
-        capabilityMap.entrySet().stream().filter(entry -> entry.getValue().toString().equals(".*")).forEach(entry -> {
+        capabilityMap.entrySet().stream().filter(entry -> entry.getValue().toString().equals(RANDOM_VALUE)).forEach(entry -> {
             String key = entry.getKey();
             String randomValue = switch (key) {
                 case "timezone" -> getRandomTimeZone(capabilityMap.get("platform").toString(), jobPurpose);
@@ -304,8 +317,7 @@ public class CapabilityManager extends BaseClass {
                         getRandomBrowserVersionFromTopFive((String) capabilityMap.getOrDefault("browserName", ""));
                 case "selenium_version" -> getRandomSelenium4Version();
                 default -> throw new RuntimeException(
-                        key + " this capability doesn't support random value. Supported values: " + Arrays.asList(
-                                randomValueSupportedCaps));
+                        key + " this capability doesn't support random value. Supported values: " + RANDOM_VALUE_SUPPORTED_CAPS);
             };
             ltLogger.info("Set {} caps value: {}", key, randomValue);
             if (randomValue != null) {
@@ -322,53 +334,28 @@ public class CapabilityManager extends BaseClass {
         String dataPath = purpose.equals(jobPurpose.SMOKE.getValue()) ?
                 GEOLOCATIONS_FOR_SMOKE_DATA_PATH :
                 GEOLOCATION_DATA_PATH;
-        try {
-            var objectMapper = new ObjectMapper();
-            var rootNode = objectMapper.readTree(getFileWithFileLock(dataPath));
-            var geoDataArray = rootNode.path("geoData");
-            ltLogger.info("GeoLocation dataset: {}", geoDataArray);
-            if (geoDataArray.isArray() && !geoDataArray.isEmpty()) {
-                Random random = new Random();
-                int randomIndex = random.nextInt(geoDataArray.size());
-                JsonNode randomGeoObject = geoDataArray.get(randomIndex);
-                TEST_VERIFICATION_DATA.get()
-                        .put(testVerificationDataKeys.GEO_LOCATION, randomGeoObject.path("countryName").asText());
-                return randomGeoObject.path("countryCode").asText();
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to read geolocation data", e);
-        }
-
-        return null;
+        CapabilityReferenceData.GeoLocation geoLocation = CapabilityReferenceData.getRandomGeoLocation(dataPath);
+        if (geoLocation == null)
+            return null;
+        TEST_VERIFICATION_DATA.get().put(testVerificationDataKeys.GEO_LOCATION, geoLocation.countryName());
+        return geoLocation.countryCode();
     }
 
     private String getRandomResolution(String platform, String purpose) {
         String dataPath = purpose.equals(jobPurpose.SMOKE.getValue()) ?
                 jobPurpose.SMOKE.getValue() :
                 jobPurpose.REGRESSION.getValue();
-        try {
-            var objectMapper = new ObjectMapper();
-            var rootNode = objectMapper.readTree(getFileWithFileLock(RESOLUTION_DATA_PATH));
-            JsonNode resDataArray = rootNode.path(platform.toLowerCase()).path(dataPath);
-            if (resDataArray.isArray() && !resDataArray.isEmpty()) {
-                ltLogger.info("Resolution dataset: {}", resDataArray);
-                Random random = new Random();
-                int randomIndex = random.nextInt(resDataArray.size());
-                String res = resDataArray.get(randomIndex).asText();
-                TEST_VERIFICATION_DATA.get().put(testVerificationDataKeys.RESOLUTION, res);
-                return res;
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to read resolution data", e);
-        }
-        return null;
+        String res = CapabilityReferenceData.getRandomResolution(platform, dataPath);
+        if (res != null)
+            TEST_VERIFICATION_DATA.get().put(testVerificationDataKeys.RESOLUTION, res);
+        return res;
     }
 
     private String getRandomBrowserVersionFromTopFive(String browserName) {
         if (browserName.matches(".*(safari|opera|ie).*"))
             return "latest";
         String[] topFive = {"latest", "latest-1", "latest-2", "latest-3", "latest-4"};
-        return topFive[new Random().nextInt(topFive.length)];
+        return topFive[ThreadLocalRandom.current().nextInt(topFive.length)];
     }
 
     private String getRandomTimeZone(String platform, String purpose) {
@@ -377,25 +364,13 @@ public class CapabilityManager extends BaseClass {
                 jobPurpose.SMOKE.getValue() :
                 jobPurpose.REGRESSION.getValue();
         ltLogger.info("timezone index: {} and data path: {}", timeZoneIndex, dataPath);
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            var rootNode = objectMapper.readTree(getFileWithFileLock(TIMEZONE_DATA_PATH));
-            List<String> timezoneIds = new ArrayList<>();
-            rootNode.path(timeZoneIndex).path(dataPath).fields().forEachRemaining(entry -> timezoneIds.add(entry.getKey()));
-            ltLogger.info("Timezone dataset: {}", timezoneIds);
-            Random random = new Random();
-            int randomIndex = random.nextInt(timezoneIds.size());
-            return timezoneIds.get(randomIndex);
-
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to read timezone data", e);
-        }
+        return CapabilityReferenceData.getRandomTimeZone(timeZoneIndex, dataPath);
     }
 
     private String getRandomSelenium4Version() {
         //    String[] topFiveBasedOnCustomerTests = { "latest", "latest-1", "latest-2", "4.17.0", "4.13.0", "4.8.0", "4.0.0" };
         String[] topFive = {"latest", "latest-1", "latest-2", "latest-3", "latest-4"};
-        return topFive[new Random().nextInt(topFive.length)];
+        return topFive[ThreadLocalRandom.current().nextInt(topFive.length)];
     }
 
     private void buildCapabilities(String capabilityString, cloudPlatforms cloudPlatform, String purpose,
@@ -409,14 +384,10 @@ public class CapabilityManager extends BaseClass {
 
     private Map<String, Object> buildCapabilityMap(cloudPlatforms cloudPlatform, String capabilityString,
                                                    String customCapsSource, String... removeCapsSource) {
-        capsString = capabilityString;
-        // Get hashmap from caps string and build caps hashmap
-        Map<String, Object> capabilityMap = new ConcurrentHashMap<>(getExtendedHashMapFromString(capsString));
-
-        // Remove specific caps based on env value
-        if (removeCapsSource != null && removeCapsSource.length > 0) {
-            removeSpecificCaps(capabilityMap, removeCapsSource[0]);
-        }
+        // Get caps hashmap from the parsed template of the caps string
+        CapabilityTemplate capabilityTemplate = getCapabilityTemplate(capabilityString, false, removeCapsSource);
+        capsString = capabilityTemplate.capsString();
+        Map<String, Object> capabilityMap = new ConcurrentHashMap<>(copyCapabilityMap(capabilityTemplate.capabilityMap()));
 
         // Set default custom values to caps map
         if (cloudPlatform == cloudPlatforms.LAMBDATEST) {
@@ -424,7 +395,7 @@ public class CapabilityManager extends BaseClass {
         }
 
         // Set random values if applicable
-        if (capsString.contains(".*")) {
+        if (capsString.contains(RANDOM_VALUE)) {
             setRandomValue(capabilityMap);
         }
 
@@ -436,10 +407,77 @@ public class CapabilityManager extends BaseClass {
         return capabilityMap;
     }
 
+    /// Caps to remove are read from the env when the template is parsed, so their value is part of the template key.
+    /// Random values are only resolved for the scenario caps, so custom caps from env are not validated for them.
+    private CapabilityTemplate getCapabilityTemplate(String capabilityString, boolean isCustomCaps,
+                                                     String... removeCapsSource) {
+        String removeCapsEnvVariable = removeCapsSource != null && removeCapsSource.length > 0 ?
+                removeCapsSource[0] :
+                null;
+        String capsToRemove = removeCapsEnvVariable == null ? "NA" : System.getProperty(removeCapsEnvVariable, "NA");
+        String templateKey = (isCustomCaps ? "custom" : capsToRemove) + "|" + capabilityString;
+        return capabilityTemplates.get(templateKey, key -> {
+            Map<String, Object> capabilityMap = getExtendedHashMapFromString(capabilityString);
+            String templateCapsString = removeCapsEnvVariable == null ?
+                    capabilityString :
+                    removeSpecificCaps(capabilityMap, capabilityString, removeCapsEnvVariable);
+            if (!isCustomCaps)
+                validateRandomValueCaps(capabilityMap);
+            return new CapabilityTemplate(toReadOnlyCapabilityMap(capabilityMap), templateCapsString);
+        });
+    }
+
+    private void validateRandomValueCaps(Map<String, Object> capabilityMap) {
+        capabilityMap.forEach((key, value) -> {
+            if (value != null && value.toString().equals(RANDOM_VALUE) && !RANDOM_VALUE_SUPPORTED_CAPS.contains(key))
+                throw new RuntimeException(
+                        key + " this capability doesn't support random value. Supported values: " + RANDOM_VALUE_SUPPORTED_CAPS);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toReadOnlyCapabilityMap(Map<String, Object> capabilityMap) {
+        Map<String, Object> readOnlyMap = new HashMap<>();
+        capabilityMap.forEach((key, value) -> readOnlyMap.put(key, toReadOnlyCapabilityValue(value)));
+        return Collections.unmodifiableMap(readOnlyMap);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toReadOnlyCapabilityValue(Object value) {
+        if (value instanceof Map<?, ?> map)
+            return toReadOnlyCapabilityMap((Map<String, Object>) map);
+        if (value instanceof List<?> list)
+            return Collections.unmodifiableList(
+                    list.stream().map(CapabilityManager::toReadOnlyCapabilityValue).collect(Collectors.toList()));
+        return value;
+    }
+
+    /// Mutable copy of a template map, nested maps and lists are copied as well as the special cases update them in place
+    @SuppressWarnings("unchecked")
+    private static HashMap<String, Object> copyCapabilityMap(Map<String, Object> capabilityMap) {
+        HashMap<String, Object> copy = new HashMap<>();
+        capabilityMap.forEach((key, value) -> copy.put(key, copyCapabilityValue(value)));
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyCapabilityValue(Object value) {
+        if (value instanceof Map<?, ?> map)
+            return copyCapabilityMap((Map<String, Object>) map);
+        if (value instanceof List<?> list)
+            return list.stream().map(CapabilityManager::copyCapabilityValue)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        return value;
+    }
+
+    public static Map<String, Object> getCapabilityTemplateCacheMetrics() {
+        return capabilityTemplates.getMetrics();
+    }
+
     private void mergeCustomTestCaps(Map<String, Object> capabilityMap, String customCapsSource) {
         Optional.ofNullable(System.getProperty(customCapsSource)).filter(caps -> !caps.isEmpty()).ifPresent(customCaps -> {
             ltLogger.info("Applying custom test capabilities: {}", customCaps);
-            capabilityMap.putAll(getExtendedHashMapFromString(customCaps));
+            capabilityMap.putAll(copyCapabilityMap(getCapabilityTemplate(customCaps, true).capabilityMap()));
         });
     }
 
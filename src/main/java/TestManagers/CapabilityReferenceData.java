@@ -0,0 +1,121 @@
+package TestManagers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import utility.BaseClass;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import static utility.FrameworkConstants.*;
+
+/// Geolocation, resolution and timezone datasets used for random capability values.
+/// Each data file is read once, under the file lock, into read only arrays indexed by platform and job purpose, so
+/// picking a random value doesn't touch the file system or any lock. Geolocations are reloaded whenever
+/// `fetchAllGeoLocationsFromCapsGeneratorAndStoreInJsonFile` writes a new file.
+public final class CapabilityReferenceData {
+    private static final Logger ltLogger = LogManager.getLogger(CapabilityReferenceData.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /// Keyed by data file path
+    private static final ConcurrentHashMap<String, GeoLocation[]> geoLocations = new ConcurrentHashMap<>();
+    /// Keyed by data file path, then platform and job purpose
+    private static final ConcurrentHashMap<String, Map<String, Map<String, String[]>>> platformDatasets = new ConcurrentHashMap<>();
+
+    public record GeoLocation(String countryCode, String countryName) {
+    }
+
+    private CapabilityReferenceData() {
+    }
+
+    private static JsonNode readDataFile(String dataPath) throws IOException {
+        return objectMapper.readTree(new BaseClass().getFileWithFileLock(dataPath));
+    }
+
+    private static GeoLocation[] readGeoLocations(String dataPath) {
+        try {
+            JsonNode geoDataArray = readDataFile(dataPath).path("geoData");
+            List<GeoLocation> geoLocationList = new ArrayList<>();
+            geoDataArray.forEach(geoObject -> geoLocationList.add(
+                    new GeoLocation(geoObject.path("countryCode").asText(), geoObject.path("countryName").asText())));
+            ltLogger.info("Loaded {} geolocations from {}", geoLocationList.size(), dataPath);
+            return geoLocationList.toArray(GeoLocation[]::new);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read geolocation data", e);
+        }
+    }
+
+    /// Reads a file of the form `{platform: {job purpose: values}}`, the values are extracted with the given function
+    private static Map<String, Map<String, String[]>> readPlatformDataset(String dataPath,
+                                                                         Function<JsonNode, List<String>> valuesExtractor) {
+        try {
+            Map<String, Map<String, String[]>> valuesByPlatform = new HashMap<>();
+            readDataFile(dataPath).fields().forEachRemaining(platform -> {
+                Map<String, String[]> valuesByPurpose = new HashMap<>();
+                platform.getValue().fields().forEachRemaining(purpose -> valuesByPurpose.put(purpose.getKey(),
+                        valuesExtractor.apply(purpose.getValue()).toArray(String[]::new)));
+                valuesByPlatform.put(platform.getKey().toLowerCase(), Map.copyOf(valuesByPurpose));
+            });
+            ltLogger.info("Loaded {} for platforms: {}", dataPath, valuesByPlatform.keySet());
+            return Map.copyOf(valuesByPlatform);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read data from " + dataPath, e);
+        }
+    }
+
+    private static List<String> getArrayValues(JsonNode node) {
+        List<String> values = new ArrayList<>();
+        node.forEach(value -> values.add(value.asText()));
+        return values;
+    }
+
+    private static List<String> getFieldNames(JsonNode node) {
+        List<String> fieldNames = new ArrayList<>();
+        node.fieldNames().forEachRemaining(fieldNames::add);
+        return fieldNames;
+    }
+
+    private static String getRandomValue(String dataPath, Function<JsonNode, List<String>> valuesExtractor,
+                                         String platform, String purpose) {
+        Map<String, Map<String, String[]>> dataset = platformDatasets.computeIfAbsent(dataPath,
+                path -> readPlatformDataset(path, valuesExtractor));
+        return getRandomElement(dataset.getOrDefault(platform.toLowerCase(), Map.of()).get(purpose));
+    }
+
+    private static <T> T getRandomElement(T[] values) {
+        if (values == null || values.length == 0)
+            return null;
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+
+    /// Returns null if the dataset is empty
+    public static GeoLocation getRandomGeoLocation(String dataPath) {
+        return getRandomElement(geoLocations.computeIfAbsent(dataPath, CapabilityReferenceData::readGeoLocations));
+    }
+
+    /// Returns null if there are no resolutions for the platform and job purpose
+    public static String getRandomResolution(String platform, String purpose) {
+        return getRandomValue(RESOLUTION_DATA_PATH, CapabilityReferenceData::getArrayValues, platform, purpose);
+    }
+
+    /// Returns null if there are no timezones for the platform and job purpose
+    public static String getRandomTimeZone(String platform, String purpose) {
+        return getRandomValue(TIMEZONE_DATA_PATH, CapabilityReferenceData::getFieldNames, platform, purpose);
+    }
+
+    /// Replaces the loaded geolocations with the content of the data file. If the file can't be read the dataset is
+    /// dropped and read again on next use.
+    public static void refreshGeoLocations(String dataPath) {
+        try {
+            geoLocations.put(dataPath, readGeoLocations(dataPath));
+        } catch (RuntimeException e) {
+            geoLocations.remove(dataPath);
+            ltLogger.warn("Unable to refresh geolocations from {}: {}", dataPath, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package TestManagers;
+
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import utility.LatencyHistogram;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static utility.FrameworkConstants.WEBDRIVER_COMMAND_HISTOGRAM_PREFIX;
+
+/// Times every WebDriver command sent to the grid, per session and for the whole run.
+/// The filter sits in the http client of the remote driver, so a command is timed from the request leaving the client
+/// until the grid responds, which is the latency to compare between clouds.
+public final class CommandLatencyRecorder {
+    private static final Map<String, String> COMMAND_NAMES = Map.ofEntries(
+            Map.entry("POST /session", "newSession"),
+            Map.entry("DELETE /session/{id}", "quit"),
+            Map.entry("POST /session/{id}/url", "get"),
+            Map.entry("GET /session/{id}/url", "getCurrentUrl"),
+            Map.entry("POST /session/{id}/element", "findElement"),
+            Map.entry("POST /session/{id}/elements", "findElements"),
+            Map.entry("POST /session/{id}/element/{id}/element", "findChildElement"),
+            Map.entry("POST /session/{id}/element/{id}/elements", "findChildElements"),
+            Map.entry("POST /session/{id}/element/{id}/click", "click"),
+            Map.entry("POST /session/{id}/element/{id}/value", "sendKeys"),
+            Map.entry("GET /session/{id}/element/{id}/text", "getElementText"),
+            Map.entry("POST /session/{id}/execute/sync", "executeScript"),
+            Map.entry("POST /session/{id}/execute/async", "executeAsyncScript"),
+            Map.entry("GET /session/{id}/screenshot", "screenshot"));
+    /// Path segments followed by an id which differs for every call
+    private static final Set<String> ID_PREFIX_SEGMENTS = Set.of("session", "element", "shadow", "cookie");
+
+    /// Keyed by session id, then command name
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, LatencyHistogram>> sessionHistograms = new ConcurrentHashMap<>();
+    /// Set while the current thread sends commands which are not part of any scenario, e.g. warm session keep alives
+    private static final ThreadLocal<Boolean> isRecordingSkipped = ThreadLocal.withInitial(() -> false);
+
+    public static final Filter FILTER = next -> request -> {
+        long startNanos = System.nanoTime();
+        HttpResponse response = next.execute(request);
+        if (!isRecordingSkipped.get())
+            record(request, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return response;
+    };
+
+    private CommandLatencyRecorder() {
+    }
+
+    private static void record(HttpRequest request, long millis) {
+        String[] segments = getPath(request.getUri()).split("/");
+        String sessionId = null;
+        StringBuilder template = new StringBuilder(request.getMethod().toString()).append(' ');
+        for (int i = 1; i < segments.length; i++) {
+            boolean isId = ID_PREFIX_SEGMENTS.contains(segments[i - 1]) && !segments[i].equals("active");
+            if (isId && segments[i - 1].equals("session"))
+                sessionId = segments[i];
+            template.append('/').append(isId ? "{id}" : segments[i]);
+        }
+        String command = COMMAND_NAMES.getOrDefault(template.toString(), template.toString());
+        LatencyHistogram.forName(WEBDRIVER_COMMAND_HISTOGRAM_PREFIX + command).record(millis);
+        if (sessionId == null)
+            return;
+        // The session is gone after quit, so it's not tracked any more
+        if (command.equals("quit"))
+            sessionHistograms.remove(sessionId);
+        else
+            sessionHistograms.computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(command, key -> new LatencyHistogram()).record(millis);
+    }
+
+    /// Path relative to the grid endpoint, starting at `/session`
+    private static String getPath(String uri) {
+        int queryIndex = uri.indexOf('?');
+        String path = queryIndex == -1 ? uri : uri.substring(0, queryIndex);
+        int sessionIndex = path.indexOf("/session");
+        return sessionIndex == -1 ? path : path.substring(sessionIndex);
+    }
+
+    /// Runs the commands without timing them
+    public static void runWithoutRecording(Runnable commands) {
+        isRecordingSkipped.set(true);
+        try {
+            commands.run();
+        } finally {
+            isRecordingSkipped.remove();
+        }
+    }
+
+    /// Drops the commands recorded so far for the session, e.g. those sent before a warm session was leased
+    public static void resetSession(String sessionId) {
+        sessionHistograms.remove(sessionId);
+    }
+
+    /// Latency summary of each command sent by the session so far, sorted by command name
+    public static Map<String, Object> getSessionSummary(String sessionId) {
+        Map<String, Object> summary = new TreeMap<>();
+        sessionHistograms.getOrDefault(sessionId, new ConcurrentHashMap<>())
+                .forEach((command, histogram) -> summary.put(command, histogram.getSummary()));
+        return summary;
+    }
+
+    /// Latency summary of each command sent by all sessions of the run
+    public static Map<String, Object> getRunSummary() {
+        return LatencyHistogram.getMetrics(WEBDRIVER_COMMAND_HISTOGRAM_PREFIX);
+    }
+}
@@ -1,17 +1,21 @@
 package TestManagers;
 
+import automationHelper.AutomationAPIHelper;
+import com.google.gson.reflect.TypeToken;
 import factory.BrowserType;
 import factory.Locator;
 import factory.LocatorTypes;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.*;
+import org.openqa.selenium.bidi.HasBiDi;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.Augmenter;
 import org.openqa.selenium.remote.LocalFileDetector;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.http.ClientConfig;
@@ -23,10 +27,18 @@ import org.openqa.selenium.support.ui.WebDriverWait;
 import utility.BaseClass;
 import utility.EnvSetup;
 
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
 import java.time.Duration;
 import java.util.NoSuchElementException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static utility.EnvSetup.*;
 import static utility.FrameworkConstants.*;
@@ -45,11 +57,28 @@ public class DriverManager extends BaseClass {
         LOCATOR_MAP.put(LocatorTypes.PARTIAL_LINK_TEXT, By::partialLinkText);
     }
 
+    private static final long WAIT_POLLING_INTERVAL = Long.getLong(WAIT_POLLING_INTERVAL_MILLIS, 500);
+    private static final boolean USE_IN_BROWSER_WAITS = Boolean.parseBoolean(System.getProperty(IN_BROWSER_WAITS, "false"));
+    private static final boolean USE_BROWSER_EVENT_CAPTURE = Boolean.parseBoolean(
+            System.getProperty(BROWSER_EVENT_CAPTURE, "false"));
+    private static final boolean USE_LOCAL_BROWSER_REUSE = Boolean.parseBoolean(
+            System.getProperty(LOCAL_BROWSER_REUSE, "false"));
+    private static final long VIRTUALIZED_LIST_SETTLE_MILLIS = 150;
+    private static final Duration BATCHED_QUERY_SCRIPT_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration GRID_CONNECTION_PROBE_TIMEOUT = Duration.ofSeconds(10);
+    /// Locator types which the in browser scripts can resolve
+    private static final Set<LocatorTypes> SCRIPT_LOCATOR_TYPES = EnumSet.of(LocatorTypes.CSS, LocatorTypes.XPATH,
+            LocatorTypes.ID, LocatorTypes.NAME, LocatorTypes.CLASS_NAME, LocatorTypes.TAG_NAME);
+
     private final Logger ltLogger = LogManager.getLogger(DriverManager.class);
     RemoteWebDriver driver;
     MutableCapabilities capabilities;
     String gridUrl;
+    /// Timeouts last sent to the driver, read from the session on first use
+    private Duration implicitWaitTimeout;
+    private Duration scriptTimeout;
     private boolean putDriverActionsToTestVerificationData = false;
+    private BrowserEventCapture browserEventCapture;
 
     public DriverManager() {
     }
@@ -79,49 +108,165 @@ public class DriverManager extends BaseClass {
 
     public WebElement waitForElementToBeVisible(Locator locator, int timeout) {
         ltLogger.info("Waiting for element via, using ['{}', '{}']", locator.type(), locator.value());
-        Duration setImplicitWait;
+        if (isInBrowserWaitSupported(locator)) {
+            WebElement element = (WebElement) waitForElementStateInBrowser(locator, true, timeout);
+            if (element == null)
+                throw new TimeoutException(
+                        "Element with locator " + locator + " is not visible after " + timeout + " seconds");
+            return element;
+        }
+        return withoutImplicitWait(() -> {
+            By byLocator = toBy(locator);
+            return newWait(timeout).until(ExpectedConditions.visibilityOfElementLocated(byLocator));
+        });
+    }
+
+    public boolean waitForElementToDisappear(Locator locator, int timeout) {
+        ltLogger.info("Waiting for element to disappear via, using ['{}', '{}']", locator.type(), locator.value());
         try {
-            setImplicitWait = driver.manage().timeouts().getImplicitWaitTimeout();
-        } catch (Exception ignore) {
-            setImplicitWait = Duration.ofSeconds(10);
+            if (isInBrowserWaitSupported(locator)) {
+                if (!Boolean.TRUE.equals(waitForElementStateInBrowser(locator, false, timeout)))
+                    throw new TimeoutException("In browser wait timed out");
+            } else {
+                withoutImplicitWait(() -> {
+                    By byLocator = toBy(locator);
+                    return newWait(timeout).until(ExpectedConditions.invisibilityOfElementLocated(byLocator));
+                });
+            }
+            return true;
+        } catch (Exception e) {
+            ltLogger.error("Element with locator ['{}', '{}'] did not disappear within {} seconds. Error: {}",
+                    locator.type(), locator.value(), timeout, e.getMessage());
+            return false;
         }
+    }
 
-        driver.manage().timeouts().implicitlyWait(Duration.ofMillis(0));
+    private WebDriverWait newWait(int timeoutInSeconds) {
+        return new WebDriverWait(driver, Duration.ofSeconds(timeoutInSeconds), Duration.ofMillis(WAIT_POLLING_INTERVAL));
+    }
 
-        try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
-            By byLocator = toBy(locator);
-            return wait.until(ExpectedConditions.visibilityOfElementLocated(byLocator));
-        } finally {
-            driver.manage().timeouts().implicitlyWait(setImplicitWait);
+    /// Sends the implicit wait to the driver only when it differs from the last value sent
+    public void setImplicitWait(Duration implicitWait) {
+        if (implicitWait.equals(getImplicitWait()))
+            return;
+        driver.manage().timeouts().implicitlyWait(implicitWait);
+        implicitWaitTimeout = implicitWait;
+    }
+
+    private Duration getImplicitWait() {
+        if (implicitWaitTimeout == null) {
+            try {
+                implicitWaitTimeout = driver.manage().timeouts().getImplicitWaitTimeout();
+            } catch (Exception ignore) {
+                implicitWaitTimeout = Duration.ofSeconds(10);
+            }
         }
+        return implicitWaitTimeout;
     }
 
-    public boolean waitForElementToDisappear(Locator locator, int timeout) {
-        ltLogger.info("Waiting for element to disappear via, using ['{}', '{}']", locator.type(), locator.value());
-        Duration setImplicitWait;
+    /// Explicit waits poll with findElement, so a non-zero implicit wait would stretch every poll
+    private <T> T withoutImplicitWait(Supplier<T> action) {
+        Duration implicitWait = getImplicitWait();
+        if (implicitWait.isZero())
+            return action.get();
+        setImplicitWait(Duration.ZERO);
         try {
-            setImplicitWait = driver.manage().timeouts().getImplicitWaitTimeout();
-        } catch (Exception ignore) {
-            setImplicitWait = Duration.ofSeconds(10);
+            return action.get();
+        } finally {
+            setImplicitWait(implicitWait);
         }
+    }
 
-        driver.manage().timeouts().implicitlyWait(Duration.ofMillis(0));
+    private boolean isInBrowserWaitSupported(Locator locator) {
+        return USE_IN_BROWSER_WAITS && SCRIPT_LOCATOR_TYPES.contains(locator.type());
+    }
 
-        boolean isElementGone;
+    /// Polls inside the browser with a MutationObserver, so the whole wait costs a single remote call
+    private Object waitForElementStateInBrowser(Locator locator, boolean waitForVisible, int timeout) {
+        putValueToVerificationData(testVerificationDataKeys.LOCATORS, locator.value());
+        return withScriptTimeoutOfAtLeast(Duration.ofSeconds(timeout + 5L),
+                () -> driver.executeAsyncScript(jsToWaitForElementState, locator.type().name(), locator.value(),
+                        waitForVisible, timeout * 1000L, WAIT_POLLING_INTERVAL));
+    }
+
+    /// Raises the script timeout for one async script when it is too short, and restores it afterwards so the test's
+    /// own scripts keep the timeout they were given
+    private <T> T withScriptTimeoutOfAtLeast(Duration requiredScriptTimeout, Supplier<T> action) {
+        Duration previousScriptTimeout = getScriptTimeout();
+        if (previousScriptTimeout.compareTo(requiredScriptTimeout) >= 0)
+            return action.get();
+        setScriptTimeout(requiredScriptTimeout);
         try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeout));
-            By byLocator = toBy(locator);
-            wait.until(ExpectedConditions.invisibilityOfElementLocated(byLocator));
-            isElementGone = true;
-        } catch (Exception e) {
-            ltLogger.error("Element with locator ['{}', '{}'] did not disappear within {} seconds. Error: {}",
-                    locator.type(), locator.value(), timeout, e.getMessage());
-            isElementGone = false;
+            return action.get();
         } finally {
-            driver.manage().timeouts().implicitlyWait(setImplicitWait);
+            setScriptTimeout(previousScriptTimeout);
         }
-        return isElementGone;
+    }
+
+    private void setScriptTimeout(Duration timeout) {
+        driver.manage().timeouts().scriptTimeout(timeout);
+        scriptTimeout = timeout;
+    }
+
+    private Duration getScriptTimeout() {
+        if (scriptTimeout == null) {
+            try {
+                scriptTimeout = driver.manage().timeouts().getScriptTimeout();
+            } catch (Exception ignore) {
+                scriptTimeout = Duration.ofSeconds(30);
+            }
+        }
+        return scriptTimeout;
+    }
+
+    private void verifyLocatorIsSupportedInScripts(Locator locator) {
+        if (!SCRIPT_LOCATOR_TYPES.contains(locator.type()))
+            throw new IllegalArgumentException("Locator type " + locator.type() + " is not supported in batched DOM queries");
+    }
+
+    /// Distinct texts of all elements matching the locator, fetched with a single script call. When a scroll container
+    /// is given it is scrolled from top to bottom, so items of a virtualized list which are not rendered yet are included.
+    public List<String> getTextsOfAllElements(Locator itemLocator, Locator... scrollContainer) {
+        Locator container = scrollContainer.length > 0 ? scrollContainer[0] : null;
+        ltLogger.info("Collecting texts of all elements with locator: {}, scroll container: {}", itemLocator, container);
+        verifyLocatorIsSupportedInScripts(itemLocator);
+        if (container != null)
+            verifyLocatorIsSupportedInScripts(container);
+        putValueToVerificationData(testVerificationDataKeys.LOCATORS, itemLocator.value());
+        Object response = withScriptTimeoutOfAtLeast(BATCHED_QUERY_SCRIPT_TIMEOUT,
+                () -> driver.executeAsyncScript(jsElementFinder + jsToCollectTextsOfElements, itemLocator.type().name(),
+                        itemLocator.value(), container == null ? null : container.type().name(),
+                        container == null ? null : container.value(), VIRTUALIZED_LIST_SETTLE_MILLIS));
+        List<String> texts = convertJsonStringToPojo(String.valueOf(response), new TypeToken<List<String>>() {
+        });
+        ltLogger.info("Collected {} distinct texts with locator: {}", texts == null ? 0 : texts.size(), itemLocator);
+        return texts == null ? Collections.emptyList() : texts;
+    }
+
+    /// Expected texts which are not contained in the text of any element matching the locator
+    public List<String> findMissingTexts(Locator itemLocator, Collection<String> expectedTexts, Locator... scrollContainer) {
+        List<String> texts = getTextsOfAllElements(itemLocator, scrollContainer);
+        List<String> missingTexts = expectedTexts.stream()
+                .filter(expectedText -> texts.stream().noneMatch(text -> text.contains(expectedText))).toList();
+        ltLogger.info("Missing texts for locator {}: {}", itemLocator, missingTexts);
+        return missingTexts;
+    }
+
+    /// Extracts every row matching the row locator in a single script call. Each row maps the given column names to
+    /// the text of the cell found with the column css selector inside the row, or `text` to the row text if no
+    /// columns are given.
+    public List<Map<String, String>> extractTableRows(Locator rowLocator, LinkedHashMap<String, String> columnCssSelectors) {
+        ltLogger.info("Extracting table rows with locator: {}, columns: {}", rowLocator, columnCssSelectors);
+        verifyLocatorIsSupportedInScripts(rowLocator);
+        putValueToVerificationData(testVerificationDataKeys.LOCATORS, rowLocator.value());
+        Object response = driver.executeScript(jsElementFinder + jsToExtractTableRows, rowLocator.type().name(),
+                rowLocator.value(), new ArrayList<>(columnCssSelectors.keySet()),
+                new ArrayList<>(columnCssSelectors.values()));
+        List<Map<String, String>> rows = convertJsonStringToPojo(String.valueOf(response),
+                new TypeToken<List<Map<String, String>>>() {
+                });
+        ltLogger.info("Extracted {} rows with locator: {}", rows == null ? 0 : rows.size(), rowLocator);
+        return rows == null ? Collections.emptyList() : rows;
     }
 
     public boolean waitForExactText(Locator locator, String expectedText, int timeoutSeconds) {
@@ -139,43 +284,86 @@ public class DriverManager extends BaseClass {
 
     public void createTestDriver() {
         capabilities = EnvSetup.TEST_CAPS.get();
+        if (USE_BROWSER_EVENT_CAPTURE)
+            capabilities.setCapability("webSocketUrl", true);
         ltLogger.info("Test caps used passed by user: {}", capabilities.asMap().toString());
         if (TEST_ENV.equals("local"))
-            createLocalTestDriver();
+            createLocalTestDriver("test");
         else
             createRemoteTestDriver("test");
+        resetTrackedTimeouts();
+        if (USE_BROWSER_EVENT_CAPTURE)
+            startBrowserEventCapture();
         testDriver.set(driver);
     }
 
+    /// Capture is best effort, a session without BiDi support is still used for the test
+    private void startBrowserEventCapture() {
+        try {
+            if (!(driver instanceof HasBiDi))
+                driver = (RemoteWebDriver) new Augmenter().augment(driver);
+            browserEventCapture = new BrowserEventCapture(driver, Integer.getInteger(BROWSER_EVENT_CAPTURE_BUFFER_SIZE, 2000));
+        } catch (Exception e) {
+            ltLogger.warn("Unable to start browser event capture: {}", e.getMessage());
+        }
+    }
+
+    public List<BrowserEventCapture.NetworkEvent> getCapturedNetworkEvents() {
+        return browserEventCapture == null ? Collections.emptyList() : browserEventCapture.getNetworkEvents();
+    }
+
+    /// Keeps the captured navigation and console events in the test verification data, to be compared with the
+    /// artefacts uploaded after the session ends
+    private void stopBrowserEventCapture() {
+        if (browserEventCapture == null)
+            return;
+        browserEventCapture.close();
+        TEST_VERIFICATION_DATA.get()
+                .put(testVerificationDataKeys.CAPTURED_NAVIGATION_EVENTS, browserEventCapture.getNavigationEvents());
+        TEST_VERIFICATION_DATA.get()
+                .put(testVerificationDataKeys.CAPTURED_CONSOLE_EVENTS, browserEventCapture.getConsoleEvents());
+        EnvSetup.TEST_REPORT.get().put("browser_event_capture", browserEventCapture.getSummary());
+        ltLogger.info("Browser event capture stopped: {}", browserEventCapture.getSummary());
+        browserEventCapture = null;
+    }
+
     public void createClientDriver() {
         capabilities = EnvSetup.CLIENT_TEST_CAPS.get();
         ltLogger.info("Client caps used passed by user: {}", capabilities.asMap().toString());
         if (TEST_ENV.equals("local"))
-            createLocalTestDriver();
+            createLocalTestDriver("client");
         else
             createRemoteTestDriver("client");
+        resetTrackedTimeouts();
         clientDriver.set(driver);
     }
 
-    private void createLocalTestDriver() {
+    private void resetTrackedTimeouts() {
+        implicitWaitTimeout = null;
+        scriptTimeout = null;
+    }
+
+    private void createLocalTestDriver(String purpose) {
         String browserName = (String) EnvSetup.TEST_CAPS_MAP.get().get("browserName");
         BrowserType browserType = BrowserType.valueOf(browserName.toUpperCase());
+        boolean reuseBrowser = purpose.equals("test") && USE_LOCAL_BROWSER_REUSE &&
+                LocalBrowserPool.isSupportedOnCurrentThread();
+        // A fresh BiDi user context per scenario needs a BiDi session, Safari doesn't support it
+        if (reuseBrowser && browserType != BrowserType.SAFARI)
+            capabilities.setCapability("webSocketUrl", true);
         ltLogger.info("Creating local driver for browser {}, with caps: {}", browserType, capabilities.asMap());
-        switch (browserType) {
-            case FIREFOX:
-                driver = new FirefoxDriver((FirefoxOptions) capabilities);
-                return;
-            case CHROME:
-                driver = new ChromeDriver((ChromeOptions) capabilities);
-                return;
-            case EDGE:
-                driver = new EdgeDriver((EdgeOptions) capabilities);
-                return;
-            case SAFARI:
-                driver = new SafariDriver((SafariOptions) capabilities);
-                return;
-            default:
-                throw new IllegalArgumentException("Unsupported browser: " + browserName);
+        Supplier<RemoteWebDriver> driverFactory = switch (browserType) {
+            case FIREFOX -> () -> new FirefoxDriver((FirefoxOptions) capabilities);
+            case CHROME -> () -> new ChromeDriver((ChromeOptions) capabilities);
+            case EDGE -> () -> new EdgeDriver((EdgeOptions) capabilities);
+            case SAFARI -> () -> new SafariDriver((SafariOptions) capabilities);
+        };
+        if (reuseBrowser) {
+            LocalBrowserPool.Lease lease = LocalBrowserPool.acquire(capabilities, driverFactory);
+            driver = lease.driver();
+            EnvSetup.TEST_REPORT.get().put("local_browser_reused", lease.isReused());
+        } else {
+            driver = driverFactory.get();
         }
     }
 
@@ -196,9 +384,32 @@ public class DriverManager extends BaseClass {
         ltLogger.info("Creating remote driver with remote grid url: {}", gridUrl);
         try {
             ClientConfig clientConfig = ClientConfig.defaultConfig().connectionTimeout(Duration.ofMinutes(20))
-                    .readTimeout(Duration.ofMinutes(20));
-            driver = (RemoteWebDriver) RemoteWebDriver.builder().oneOf(capabilities).address(gridUrl).config(clientConfig)
-                    .build();
+                    .readTimeout(Duration.ofMinutes(20)).withFilter(CommandLatencyRecorder.FILTER);
+            Capabilities sessionCapabilities = new ImmutableCapabilities(capabilities);
+            String sessionGridUrl = gridUrl;
+            Supplier<RemoteWebDriver> driverFactory = () -> (RemoteWebDriver) RemoteWebDriver.builder()
+                    .oneOf(sessionCapabilities).address(sessionGridUrl).config(clientConfig).build();
+
+            boolean useWarmSessionPool = purpose.equals("test") && Boolean.TRUE.equals(
+                    IS_WARM_SESSION_POOL_ENABLED.get());
+            if (useWarmSessionPool) {
+                String fingerprint = RemoteDriverPool.getFingerprint(gridUrl, capabilities);
+                RemoteDriverPool.WarmSession warmSession = RemoteDriverPool.take(fingerprint);
+                boolean isWarmSession = warmSession != null;
+                EnvSetup.TEST_REPORT.get().put("warm_session_used", isWarmSession);
+                RemoteDriverPool.replenish(fingerprint, driverFactory);
+                if (isWarmSession) {
+                    driver = warmSession.driver();
+                    EnvSetup.TEST_REPORT.get().put(WARM_SESSION_PRE_LEASE_TIME,
+                            String.valueOf(warmSession.preLeaseAge().toMillis() / 1000.00));
+                    EnvSetup.TEST_REPORT.get().put("warm_session_pre_lease_commands", warmSession.preLeaseCommands());
+                    updateWarmSessionDetails(driver.getSessionId().toString());
+                } else {
+                    driver = createRemoteDriverAndRecordTime(driverFactory, purpose);
+                }
+            } else {
+                driver = createRemoteDriverAndRecordTime(driverFactory, purpose);
+            }
             sessionId.set(driver.getSessionId().toString());
             EnvSetup.TEST_REPORT.get().put(sessionIdKey, sessionId.get());
             ltLogger.info("Remote driver created. Test session ID: {}", sessionId.get());
@@ -208,6 +419,54 @@ public class DriverManager extends BaseClass {
         }
     }
 
+    /// The new session request covers the grid allocating a machine and the browser boot, until the grid responds
+    private RemoteWebDriver createRemoteDriverAndRecordTime(Supplier<RemoteWebDriver> driverFactory, String purpose) {
+        long startNanos = System.nanoTime();
+        RemoteWebDriver remoteDriver = driverFactory.get();
+        if (purpose.equals("test"))
+            recordSessionStartupPhase("new_session_request",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return remoteDriver;
+    }
+
+    /// The Selenium http client doesn't expose its connection setup, so with `GRID_CONNECTION_PROBE` a separate probe
+    /// connection is opened to the test grid to time the TCP connect and the TLS handshake. The phases are named as
+    /// probe phases, as they don't time the connection the driver uses.
+    public void recordGridConnectionPhases() {
+        if (!Boolean.getBoolean(GRID_CONNECTION_PROBE))
+            return;
+        URI gridUri = URI.create(HTTPS + testGridUrl.get());
+        String host = gridUri.getHost();
+        int port = gridUri.getPort() == -1 ? 443 : gridUri.getPort();
+        int timeoutMillis = (int) GRID_CONNECTION_PROBE_TIMEOUT.toMillis();
+        try (Socket socket = new Socket()) {
+            long connectStartNanos = System.nanoTime();
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            recordSessionStartupPhase("grid_probe_connect", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStartNanos));
+            socket.setSoTimeout(timeoutMillis);
+            long handshakeStartNanos = System.nanoTime();
+            try (SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(
+                    socket, host, port, true)) {
+                sslSocket.startHandshake();
+            }
+            recordSessionStartupPhase("grid_probe_tls_handshake",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - handshakeStartNanos));
+        } catch (IOException e) {
+            ltLogger.warn("Unable to time connection to grid {}: {}", host, e.getMessage());
+        }
+    }
+
+    /// Warm sessions were created with the name and tags of an earlier scenario
+    private void updateWarmSessionDetails(String warmSessionId) {
+        Map<String, Object> testCaps = EnvSetup.TEST_CAPS_MAP.get();
+        HashMap<String, Object> sessionDetails = new HashMap<>();
+        for (String sessionDetail : new String[]{TEST_NAME, TEST_TAGS}) {
+            if (testCaps.get(sessionDetail) != null)
+                sessionDetails.put(sessionDetail, testCaps.get(sessionDetail));
+        }
+        new AutomationAPIHelper().updateSessionDetailsViaAPI(warmSessionId, sessionDetails);
+    }
+
     public void getURL(String url) {
         ltLogger.info("Opening URL: {}", url);
         driver.get(url);
@@ -227,8 +486,27 @@ public class DriverManager extends BaseClass {
         executeScript(String.format(jsToNavigateToUrl, url));
     }
 
+    /// A local browser leased for reuse is reset for the next scenario instead of quit
     public void quit() {
-        driver.quit();
+        stopBrowserEventCapture();
+        putCommandLatencyToTestReport();
+        if (LocalBrowserPool.isLeased(driver))
+            LocalBrowserPool.release(driver);
+        else
+            driver.quit();
+    }
+
+    /// Only remote sessions have their commands timed
+    private void putCommandLatencyToTestReport() {
+        if (driver.getSessionId() == null)
+            return;
+        String sessionId = driver.getSessionId().toString();
+        Map<String, Object> commandLatency = CommandLatencyRecorder.getSessionSummary(sessionId);
+        if (commandLatency.isEmpty())
+            return;
+        String commandLatencyKey = sessionId.equals(CLIENT_SESSION_ID.get()) ? "client_command_latency" : "command_latency";
+        EnvSetup.TEST_REPORT.get().put(commandLatencyKey, commandLatency);
+        ltLogger.info("WebDriver command latency of session {}: {}", sessionId, commandLatency);
     }
 
     public WebElement findElement(Locator locator) {
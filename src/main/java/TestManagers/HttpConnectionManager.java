@@ -0,0 +1,164 @@
+package TestManagers;
+
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLSocket;
+import java.net.Socket;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static utility.FrameworkConstants.*;
+
+/// Process wide keep-alive HTTP engine shared by every [ApiManager].
+/// All threads lease connections from one pool, so repeated calls to the same API host reuse an open TLS connection
+/// instead of doing a fresh handshake for each request.
+@SuppressWarnings("deprecation")
+public final class HttpConnectionManager {
+    private static final Logger ltLogger = LogManager.getLogger(HttpConnectionManager.class);
+
+    private static final int MAX_TOTAL_CONNECTIONS = Integer.getInteger(HTTP_POOL_MAX_TOTAL, 200);
+    private static final int MAX_CONNECTIONS_PER_ROUTE = Integer.getInteger(HTTP_POOL_MAX_PER_ROUTE, 20);
+    private static final int IDLE_CONNECTION_TIMEOUT_SECONDS = Integer.getInteger(HTTP_POOL_IDLE_TIMEOUT_SECONDS, 30);
+
+    private static final LongAdder tlsHandshakes = new LongAdder();
+    private static final LongAdder plainConnections = new LongAdder();
+    private static final LongAdder requests = new LongAdder();
+
+    private static final PoolingClientConnectionManager connectionManager = createConnectionManager();
+    private static final DefaultHttpClient sharedHttpClient = createHttpClient();
+
+    private static final RestAssuredConfig pooledConfig = RestAssuredConfig.config()
+            .httpClient(HttpClientConfig.httpClientConfig().reuseHttpClientInstance().httpClientFactory(() -> sharedHttpClient));
+
+    /// Requests which change client level params (like redirect handling) must not touch the shared client
+    private static final RestAssuredConfig isolatedConfig = RestAssuredConfig.config()
+            .httpClient(HttpClientConfig.httpClientConfig().dontReuseHttpClientInstance());
+
+    private static final Filter requestCounter = (requestSpec, responseSpec, context) -> {
+        requests.increment();
+        return context.next(requestSpec, responseSpec);
+    };
+
+    static {
+        ScheduledExecutorService idleConnectionEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-idle-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        idleConnectionEvictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(IDLE_CONNECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }, IDLE_CONNECTION_TIMEOUT_SECONDS, IDLE_CONNECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            ltLogger.info("Http connection pool metrics at shutdown: {}", getPoolMetrics());
+            connectionManager.shutdown();
+        }));
+        ltLogger.info("Initialised shared http connection pool with max total: {}, max per route: {}, idle timeout: {}s",
+                MAX_TOTAL_CONNECTIONS, MAX_CONNECTIONS_PER_ROUTE, IDLE_CONNECTION_TIMEOUT_SECONDS);
+    }
+
+    /// Holds the uri with credentials removed and the equivalent basic auth header
+    public record RequestTarget(String uri, String basicAuthHeader) {
+    }
+
+    private HttpConnectionManager() {
+    }
+
+    private static PoolingClientConnectionManager createConnectionManager() {
+        SSLSocketFactory sslSocketFactory = new SSLSocketFactory(SSLContexts.createDefault(),
+                SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER) {
+            @Override
+            protected void prepareSocket(SSLSocket socket) {
+                socket.addHandshakeCompletedListener(event -> tlsHandshakes.increment());
+            }
+        };
+        PlainSocketFactory plainSocketFactory = new PlainSocketFactory() {
+            @Override
+            public Socket createSocket(HttpParams params) {
+                plainConnections.increment();
+                return super.createSocket(params);
+            }
+        };
+
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", 80, plainSocketFactory));
+        schemeRegistry.register(new Scheme("https", 443, sslSocketFactory));
+
+        PoolingClientConnectionManager manager = new PoolingClientConnectionManager(schemeRegistry);
+        manager.setMaxTotal(MAX_TOTAL_CONNECTIONS);
+        manager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        return manager;
+    }
+
+    private static DefaultHttpClient createHttpClient() {
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+        client.getParams().setBooleanParameter(CoreConnectionPNames.STALE_CONNECTION_CHECK, true);
+        return client;
+    }
+
+    /// Config to be applied on every RestAssured request spec, so it uses the shared pooled client
+    public static RestAssuredConfig pooledConfig() {
+        return pooledConfig;
+    }
+
+    /// Config for requests which change client level params, they get a client of their own
+    public static RestAssuredConfig isolatedConfig() {
+        return isolatedConfig;
+    }
+
+    /// Filter to be added on every RestAssured request spec, counts the requests actually sent
+    public static Filter requestCounter() {
+        return requestCounter;
+    }
+
+    /// Credentials embedded in the uri (user:key@host) are moved to a pre-emptive basic auth header. This keeps the
+    /// shared client free of per-user credential state and saves the 401 challenge round trip.
+    public static RequestTarget extractCredentialsFromUri(String uri) {
+        int schemeEnd = uri.indexOf("://");
+        if (schemeEnd < 0) {
+            return new RequestTarget(uri, null);
+        }
+        int authorityStart = schemeEnd + 3;
+        int pathStart = uri.indexOf('/', authorityStart);
+        String authority = pathStart < 0 ? uri.substring(authorityStart) : uri.substring(authorityStart, pathStart);
+        int userInfoEnd = authority.lastIndexOf('@');
+        if (userInfoEnd < 0) {
+            return new RequestTarget(uri, null);
+        }
+        String userInfo = authority.substring(0, userInfoEnd);
+        String strippedUri = uri.substring(0, authorityStart) + uri.substring(authorityStart + userInfoEnd + 1);
+        return new RequestTarget(strippedUri, "Basic " + Base64.getEncoder().encodeToString(userInfo.getBytes()));
+    }
+
+    public static Map<String, Object> getPoolMetrics() {
+        PoolStats stats = connectionManager.getTotalStats();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("leased", stats.getLeased());
+        metrics.put("idle", stats.getAvailable());
+        metrics.put("pending", stats.getPending());
+        metrics.put("max", stats.getMax());
+        metrics.put("requests", requests.sum());
+        metrics.put("tls_handshakes", tlsHandshakes.sum());
+        metrics.put("plain_connections", plainConnections.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,207 @@
+package TestManagers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.bidi.HasBiDi;
+import org.openqa.selenium.bidi.browsingcontext.BrowsingContext;
+import org.openqa.selenium.bidi.browsingcontext.CreateContextParameters;
+import org.openqa.selenium.bidi.module.Browser;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/// Keeps one local browser per worker thread across scenarios when `LOCAL_BROWSER_REUSE` is enabled with `ENV=local`.
+/// A released browser is reset for the next scenario by moving it to a fresh BiDi user context, which drops cookies and
+/// storage of every origin, and closing all other tabs. Browsers without BiDi get their cookies, storage and extra tabs
+/// cleared instead. With BiDi even the first scenario runs in a user context of its own, as the default one is never
+/// cleared. Timeouts and window size go back to the values the browser was launched with. The browser is only
+/// restarted when the next scenario asks for different capabilities.
+public final class LocalBrowserPool {
+    private static final Logger ltLogger = LogManager.getLogger(LocalBrowserPool.class);
+
+    private static final ThreadLocal<LeasedBrowser> leasedBrowser = new ThreadLocal<>();
+    /// All browsers of all threads, to quit them on shutdown
+    private static final Set<LeasedBrowser> allBrowsers = ConcurrentHashMap.newKeySet();
+
+    private static final LongAdder launched = new LongAdder();
+    private static final LongAdder reused = new LongAdder();
+    private static final LongAdder restartedForNewCapabilities = new LongAdder();
+    private static final LongAdder resetFailures = new LongAdder();
+
+    private static class LeasedBrowser {
+        private final RemoteWebDriver driver;
+        private final String fingerprint;
+        private final Duration initialImplicitWait;
+        private final Duration initialScriptTimeout;
+        private final Duration initialPageLoadTimeout;
+        private final Dimension initialWindowSize;
+        private boolean isInUse = true;
+        private String userContext;
+
+        private LeasedBrowser(RemoteWebDriver driver, String fingerprint) {
+            this.driver = driver;
+            this.fingerprint = fingerprint;
+            WebDriver.Timeouts timeouts = driver.manage().timeouts();
+            this.initialImplicitWait = timeouts.getImplicitWaitTimeout();
+            this.initialScriptTimeout = timeouts.getScriptTimeout();
+            this.initialPageLoadTimeout = timeouts.getPageLoadTimeout();
+            this.initialWindowSize = driver.manage().window().getSize();
+        }
+    }
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            ltLogger.info("Local browser pool metrics at shutdown: {}", getMetrics());
+            allBrowsers.forEach(LocalBrowserPool::quit);
+        }));
+    }
+
+    private LocalBrowserPool() {
+    }
+
+    public record Lease(RemoteWebDriver driver, boolean isReused) {
+    }
+
+    /// Virtual threads are not reused across scenarios, so they always get a browser of their own
+    public static boolean isSupportedOnCurrentThread() {
+        return !Thread.currentThread().isVirtual();
+    }
+
+    /// Returns the browser of the current thread if it was started with the same capabilities, else starts a new one
+    public static Lease acquire(Capabilities capabilities, Supplier<RemoteWebDriver> driverFactory) {
+        String fingerprint = RemoteDriverPool.getFingerprint("local", capabilities);
+        LeasedBrowser browser = leasedBrowser.get();
+        if (browser != null) {
+            if (browser.fingerprint.equals(fingerprint) && !browser.isInUse && isAlive(browser)) {
+                browser.isInUse = true;
+                reused.increment();
+                ltLogger.info("Reusing local browser session: {}", browser.driver.getSessionId());
+                return new Lease(browser.driver, true);
+            }
+            if (!browser.fingerprint.equals(fingerprint))
+                restartedForNewCapabilities.increment();
+            discard(browser);
+        }
+        RemoteWebDriver driver = driverFactory.get();
+        launched.increment();
+        try {
+            browser = new LeasedBrowser(driver, fingerprint);
+            if (isBiDiAvailable(driver))
+                moveToNewUserContext(browser);
+        } catch (RuntimeException e) {
+            driver.quit();
+            throw e;
+        }
+        leasedBrowser.set(browser);
+        allBrowsers.add(browser);
+        return new Lease(driver, false);
+    }
+
+    public static boolean isLeased(WebDriver driver) {
+        LeasedBrowser browser = leasedBrowser.get();
+        return browser != null && browser.driver == driver;
+    }
+
+    /// Resets the browser for the next scenario of this thread. Releasing an already released browser does nothing.
+    public static void release(WebDriver driver) {
+        LeasedBrowser browser = leasedBrowser.get();
+        if (browser == null || browser.driver != driver || !browser.isInUse)
+            return;
+        try {
+            if (isBiDiAvailable(browser.driver))
+                moveToNewUserContext(browser);
+            else
+                clearBrowsingData(browser.driver);
+            resetTimeoutsAndWindowSize(browser);
+            browser.isInUse = false;
+            ltLogger.info("Local browser session {} reset for the next scenario", browser.driver.getSessionId());
+        } catch (Exception e) {
+            resetFailures.increment();
+            ltLogger.warn("Unable to reset local browser, it will be restarted: {}", e.getMessage());
+            discard(browser);
+        }
+    }
+
+    private static boolean isBiDiAvailable(RemoteWebDriver driver) {
+        return driver instanceof HasBiDi hasBiDi && hasBiDi.maybeGetBiDi().isPresent();
+    }
+
+    private static void moveToNewUserContext(LeasedBrowser browser) {
+        Browser bidiBrowser = new Browser(browser.driver);
+        String newUserContext = bidiBrowser.createUserContext();
+        String newWindowHandle = new BrowsingContext(browser.driver,
+                new CreateContextParameters(WindowType.TAB).userContext(newUserContext)).getId();
+        closeAllWindowsExcept(browser.driver, newWindowHandle);
+        if (browser.userContext != null)
+            bidiBrowser.removeUserContext(browser.userContext);
+        browser.userContext = newUserContext;
+    }
+
+    private static void clearBrowsingData(RemoteWebDriver driver) {
+        String firstWindowHandle = driver.getWindowHandles().iterator().next();
+        closeAllWindowsExcept(driver, firstWindowHandle);
+        driver.manage().deleteAllCookies();
+        driver.executeScript("try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        driver.get("about:blank");
+    }
+
+    /// DriverManager reads the live timeouts of a new lease, so the previous scenario's waits must not carry over
+    private static void resetTimeoutsAndWindowSize(LeasedBrowser browser) {
+        browser.driver.manage().timeouts().implicitlyWait(browser.initialImplicitWait)
+                .scriptTimeout(browser.initialScriptTimeout).pageLoadTimeout(browser.initialPageLoadTimeout);
+        browser.driver.manage().window().setSize(browser.initialWindowSize);
+    }
+
+    private static void closeAllWindowsExcept(RemoteWebDriver driver, String windowHandleToKeep) {
+        for (String windowHandle : driver.getWindowHandles()) {
+            if (!windowHandle.equals(windowHandleToKeep)) {
+                driver.switchTo().window(windowHandle);
+                driver.close();
+            }
+        }
+        driver.switchTo().window(windowHandleToKeep);
+    }
+
+    private static boolean isAlive(LeasedBrowser browser) {
+        try {
+            browser.driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            ltLogger.warn("Local browser session {} is not responding: {}", browser.driver.getSessionId(),
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    private static void discard(LeasedBrowser browser) {
+        leasedBrowser.remove();
+        allBrowsers.remove(browser);
+        quit(browser);
+    }
+
+    private static void quit(LeasedBrowser browser) {
+        try {
+            browser.driver.quit();
+        } catch (Exception e) {
+            ltLogger.warn("Unable to quit local browser session {}: {}", browser.driver.getSessionId(), e.getMessage());
+        }
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("launched", launched.sum());
+        metrics.put("reused", reused.sum());
+        metrics.put("restarted_for_new_capabilities", restartedForNewCapabilities.sum());
+        metrics.put("reset_failures", resetFailures.sum());
+        metrics.put("open", allBrowsers.size());
+        return metrics;
+    }
+}
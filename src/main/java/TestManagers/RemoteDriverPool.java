@@ -0,0 +1,214 @@
+package TestManagers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static utility.FrameworkConstants.*;
+
+/// Pool of remote sessions created ahead of time for scenarios tagged with `@warm_session_pool`.
+/// Sessions are keyed by a fingerprint of the grid url and the capabilities without test name and tags, so any
+/// scenario with the same capabilities can pick up a session created for an earlier one.
+/// Pooled sessions are pinged before they reach the grid idle timeout and quit once they are older than the max age, or
+/// once no scenario has asked for their capabilities within the retire time.
+/// A warm session's video, duration and command logs start before the scenario leases it, with the new session and
+/// keep alive commands, so scenarios asserting exact command counts should not use warm sessions.
+public final class RemoteDriverPool {
+    private static final Logger ltLogger = LogManager.getLogger(RemoteDriverPool.class);
+
+    private static final int POOL_SIZE = Integer.getInteger(WARM_SESSION_POOL_SIZE, 1);
+    private static final long MAX_IDLE_NANOS = TimeUnit.SECONDS.toNanos(
+            Integer.getInteger(WARM_SESSION_POOL_MAX_IDLE_SECONDS, 60));
+    private static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(
+            Integer.getInteger(WARM_SESSION_POOL_MAX_AGE_SECONDS, 300));
+    private static final long RETIRE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(
+            Integer.getInteger(WARM_SESSION_POOL_RETIRE_AFTER_SECONDS, 120));
+    private static final Set<String> CAPS_EXCLUDED_FROM_FINGERPRINT = Set.of(TEST_NAME, TEST_TAGS);
+
+    private static final ConcurrentHashMap<String, ConcurrentLinkedDeque<PooledDriver>> idleDrivers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, AtomicInteger> pendingCreations = new ConcurrentHashMap<>();
+    /// When a scenario last asked for a session of the fingerprint, pooled sessions nobody asks for anymore are retired
+    private static final ConcurrentHashMap<String, Long> lastRequestedAtNanos = new ConcurrentHashMap<>();
+    private static final ExecutorService warmUpExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("warm-session-", 0).factory());
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder created = new LongAdder();
+    private static final LongAdder creationFailures = new LongAdder();
+    private static final LongAdder evicted = new LongAdder();
+
+    /// A leased warm session, with how long it existed and how many commands it got before the lease
+    public record WarmSession(RemoteWebDriver driver, Duration preLeaseAge, int preLeaseCommands) {
+    }
+
+    private static class PooledDriver {
+        private final RemoteWebDriver driver;
+        private final long createdAtNanos = System.nanoTime();
+        private volatile long lastUsedAtNanos = createdAtNanos;
+        private final AtomicInteger keepAliveCommands = new AtomicInteger();
+
+        private PooledDriver(RemoteWebDriver driver) {
+            this.driver = driver;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return nowNanos - createdAtNanos > MAX_AGE_NANOS;
+        }
+    }
+
+    static {
+        ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "warm-session-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long maintenanceIntervalSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(MAX_IDLE_NANOS) / 2);
+        maintenanceExecutor.scheduleWithFixedDelay(RemoteDriverPool::maintainIdleDrivers, maintenanceIntervalSeconds,
+                maintenanceIntervalSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            ltLogger.info("Warm session pool metrics at shutdown: {}", getMetrics());
+            idleDrivers.values().forEach(drivers -> drivers.forEach(RemoteDriverPool::quit));
+        }));
+    }
+
+    private RemoteDriverPool() {
+    }
+
+    public static String getFingerprint(String gridUrl, Capabilities capabilities) {
+        return gridUrl + "|" + normalize(capabilities.asMap());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object normalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> normalized = new TreeMap<>();
+            ((Map<String, Object>) map).forEach((key, nestedValue) -> {
+                if (!CAPS_EXCLUDED_FROM_FINGERPRINT.contains(key))
+                    normalized.put(key, normalize(nestedValue));
+            });
+            return normalized;
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().map(RemoteDriverPool::normalize).toList();
+        }
+        if (value instanceof Object[] array) {
+            return Arrays.stream(array).map(RemoteDriverPool::normalize).toList();
+        }
+        return value;
+    }
+
+    /// Returns a warm session for the fingerprint or null if none is available
+    public static WarmSession take(String fingerprint) {
+        lastRequestedAtNanos.put(fingerprint, System.nanoTime());
+        ConcurrentLinkedDeque<PooledDriver> drivers = idleDrivers.get(fingerprint);
+        PooledDriver pooledDriver;
+        while (drivers != null && (pooledDriver = drivers.pollFirst()) != null) {
+            long nowNanos = System.nanoTime();
+            if (!pooledDriver.isExpired(nowNanos)) {
+                hits.increment();
+                ltLogger.info("Using warm session: {}", pooledDriver.driver.getSessionId());
+                // Latency of the scenario's session starts at the lease, without its new session and keep alives
+                CommandLatencyRecorder.resetSession(pooledDriver.driver.getSessionId().toString());
+                return new WarmSession(pooledDriver.driver, Duration.ofNanos(nowNanos - pooledDriver.createdAtNanos),
+                        1 + pooledDriver.keepAliveCommands.get());
+            }
+            evict(pooledDriver, "max age reached");
+        }
+        misses.increment();
+        return null;
+    }
+
+    /// Creates sessions in the background until the pool for the fingerprint is back to its configured size
+    public static void replenish(String fingerprint, Supplier<RemoteWebDriver> driverFactory) {
+        AtomicInteger pending = pendingCreations.computeIfAbsent(fingerprint, key -> new AtomicInteger());
+        ConcurrentLinkedDeque<PooledDriver> drivers = idleDrivers.computeIfAbsent(fingerprint,
+                key -> new ConcurrentLinkedDeque<>());
+        while (true) {
+            int currentPending = pending.get();
+            if (drivers.size() + currentPending >= POOL_SIZE)
+                return;
+            if (!pending.compareAndSet(currentPending, currentPending + 1))
+                continue;
+            warmUpExecutor.execute(() -> {
+                try {
+                    RemoteWebDriver driver = driverFactory.get();
+                    created.increment();
+                    drivers.addLast(new PooledDriver(driver));
+                    ltLogger.info("Warm session created: {}", driver.getSessionId());
+                } catch (Exception e) {
+                    creationFailures.increment();
+                    ltLogger.warn("Unable to create warm session: {}", e.getMessage());
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static void maintainIdleDrivers() {
+        long nowNanos = System.nanoTime();
+        idleDrivers.forEach((fingerprint, drivers) -> {
+            boolean isRetired =
+                    nowNanos - lastRequestedAtNanos.getOrDefault(fingerprint, nowNanos) > RETIRE_AFTER_NANOS;
+            drivers.forEach(pooledDriver -> {
+                if (pooledDriver.isExpired(nowNanos)) {
+                    if (drivers.remove(pooledDriver))
+                        evict(pooledDriver, "max age reached");
+                } else if (isRetired) {
+                    if (drivers.remove(pooledDriver))
+                        evict(pooledDriver, "not requested within the retire time");
+                } else if (nowNanos - pooledDriver.lastUsedAtNanos > MAX_IDLE_NANOS / 2
+                        && drivers.remove(pooledDriver)) {
+                    // Taken out of the pool while pinged, so a scenario never leases a session in the middle of a ping
+                    keepAlive(drivers, pooledDriver);
+                }
+            });
+        });
+    }
+
+    /// Any command resets the grid idle timer, it's not counted in the command latency of the run
+    private static void keepAlive(ConcurrentLinkedDeque<PooledDriver> drivers, PooledDriver pooledDriver) {
+        try {
+            CommandLatencyRecorder.runWithoutRecording(pooledDriver.driver::getWindowHandle);
+            pooledDriver.keepAliveCommands.incrementAndGet();
+            pooledDriver.lastUsedAtNanos = System.nanoTime();
+            drivers.addFirst(pooledDriver);
+        } catch (Exception e) {
+            evict(pooledDriver, "keep alive failed: " + e.getMessage());
+        }
+    }
+
+    private static void evict(PooledDriver pooledDriver, String reason) {
+        evicted.increment();
+        ltLogger.info("Evicting warm session {}: {}", pooledDriver.driver.getSessionId(), reason);
+        warmUpExecutor.execute(() -> quit(pooledDriver));
+    }
+
+    private static void quit(PooledDriver pooledDriver) {
+        try {
+            pooledDriver.driver.quit();
+        } catch (Exception e) {
+            ltLogger.warn("Unable to quit warm session {}: {}", pooledDriver.driver.getSessionId(), e.getMessage());
+        }
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("created", created.sum());
+        metrics.put("creation_failures", creationFailures.sum());
+        metrics.put("evicted", evicted.sum());
+        metrics.put("idle", idleDrivers.values().stream().mapToInt(ConcurrentLinkedDeque::size).sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,339 @@
+package TestManagers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static utility.FrameworkConstants.*;
+
+/// Keeps tunnel binaries in a cache shared by all JVMs of a machine, under `<cache>/<env>/<os>/<sha256>/`, and installs
+/// the one matching the current download into the path TunnelManager runs the binary from.
+/// The download is identified by its ETag, or its Last-Modified and length, so a binary is only downloaded when the
+/// server has a new one. Downloads are split into ranged requests fetched in parallel, completed ranges are remembered
+/// so an interrupted download resumes, and an exclusive lock on a file in the cache keeps parallel JVMs from downloading
+/// the same binary. Cached binaries are checked against their checksum before every use.
+public final class TunnelBinaryManager {
+    private static final Logger ltLogger = LogManager.getLogger(TunnelBinaryManager.class);
+
+    private static final Map<String, String> DOWNLOAD_PATHS = Map.of("win", "windows/64bit/LT_Windows.zip", "mac",
+            "mac/64bit/LT_Mac.zip", "linux", "linux/64bit/LT_Linux.zip");
+    private static final Map<String, String> DOWNLOAD_HOSTS = Map.of("stage", "stage-downloads.lambdatestinternal.com",
+            "prod", "downloads.lambdatest.com");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+    private static final int MAX_RANGE_ATTEMPTS = 3;
+    private static final int MIN_RANGE_BYTES = 1024 * 1024;
+
+    private static final Object progressFileLock = new Object();
+    private static final HttpClient httpClient = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(30)).build();
+
+    private record RemoteBinary(URI uri, long length, boolean isRangeSupported, String versionId) {
+    }
+
+    private TunnelBinaryManager() {
+    }
+
+    /// Makes sure the tunnel binary of the env is installed at TunnelManager's binary path, downloading it only when
+    /// the cache doesn't have the current version. Falls back to the latest cached binary when the server can't be
+    /// reached.
+    public static synchronized Path installTunnelBinary(String env) throws IOException {
+        String tunnelEnv = env.toLowerCase().contains("stage") ? "stage" : "prod";
+        String osKey = getOsKey();
+        Path cacheDirectory = Path.of(System.getProperty(TUNNEL_BINARY_CACHE_DIR,
+                Path.of(System.getProperty("user.home"), ".cache", "ltqa-tunnel-binary").toString()), tunnelEnv, osKey);
+        Files.createDirectories(cacheDirectory.resolve("versions"));
+        Path installPath = Path.of(TunnelManager.getTunnelBinaryPath());
+
+        Path cachedBinary;
+        try {
+            RemoteBinary remoteBinary = getRemoteBinary(getDownloadUri(tunnelEnv, osKey));
+            cachedBinary = getCachedBinary(cacheDirectory, remoteBinary.versionId(), installPath.getFileName().toString());
+            if (cachedBinary == null)
+                cachedBinary = downloadUnderLock(cacheDirectory, remoteBinary, installPath.getFileName().toString());
+        } catch (IOException e) {
+            cachedBinary = getLatestCachedBinary(cacheDirectory, installPath.getFileName().toString());
+            if (cachedBinary == null)
+                throw e;
+            ltLogger.warn("Unable to check the tunnel binary on the server, using cached binary {}: {}", cachedBinary,
+                    e.getMessage());
+        }
+        install(cachedBinary, installPath);
+        return installPath;
+    }
+
+    private static String getOsKey() {
+        String osName = System.getProperty(OS_NAME).toLowerCase();
+        return DOWNLOAD_PATHS.keySet().stream().filter(osName::contains).findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unsupported OS: " + osName));
+    }
+
+    /// `TUNNEL_BINARY_DOWNLOAD_URL` points the download to another server, e.g. a local stand-in
+    private static URI getDownloadUri(String tunnelEnv, String osKey) {
+        String customDownloadUrl = System.getProperty(TUNNEL_BINARY_DOWNLOAD_URL);
+        if (customDownloadUrl != null)
+            return URI.create(customDownloadUrl);
+        return URI.create(HTTPS + DOWNLOAD_HOSTS.get(tunnelEnv) + "/tunnel/v3/" + DOWNLOAD_PATHS.get(osKey));
+    }
+
+    private static RemoteBinary getRemoteBinary(URI uri) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build();
+        HttpResponse<Void> response = send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200)
+            throw new IOException("Tunnel binary HEAD request to " + uri + " returned " + response.statusCode());
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        boolean isRangeSupported = length > 0 && response.headers().firstValue("Accept-Ranges").orElse("")
+                .equalsIgnoreCase("bytes");
+        String versionId = response.headers().firstValue("ETag")
+                .orElse(response.headers().firstValue("Last-Modified").orElse("") + "-" + length);
+        ltLogger.info("Tunnel binary at {} has version {} and length {}", uri, versionId, length);
+        return new RemoteBinary(response.uri(), length, isRangeSupported,
+                versionId.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    /// Returns the cached binary of the version if its content still matches its checksum
+    private static Path getCachedBinary(Path cacheDirectory, String versionId, String binaryName) throws IOException {
+        Path versionFile = cacheDirectory.resolve("versions").resolve(versionId);
+        if (!Files.exists(versionFile))
+            return null;
+        String checksum = Files.readString(versionFile, StandardCharsets.UTF_8).trim();
+        Path cachedBinary = cacheDirectory.resolve(checksum).resolve(binaryName);
+        if (Files.exists(cachedBinary) && checksum.equals(sha256(cachedBinary)))
+            return cachedBinary;
+        ltLogger.warn("Cached tunnel binary {} doesn't match its checksum {}, downloading it again", cachedBinary,
+                checksum);
+        return null;
+    }
+
+    private static Path getLatestCachedBinary(Path cacheDirectory, String binaryName) throws IOException {
+        try (var versionFiles = Files.list(cacheDirectory.resolve("versions"))) {
+            for (Path versionFile : versionFiles.sorted(Comparator.comparing(TunnelBinaryManager::getLastModifiedTime)
+                    .reversed()).toList()) {
+                Path cachedBinary = getCachedBinary(cacheDirectory, versionFile.getFileName().toString(), binaryName);
+                if (cachedBinary != null)
+                    return cachedBinary;
+            }
+        }
+        return null;
+    }
+
+    private static FileTime getLastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /// Only one JVM of the machine downloads a version, the others wait for the lock and find it in the cache
+    private static Path downloadUnderLock(Path cacheDirectory, RemoteBinary remoteBinary, String binaryName)
+            throws IOException {
+        try (FileChannel lockChannel = FileChannel.open(cacheDirectory.resolve("download.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock downloadLock = lockChannel.lock();
+            try {
+                return downloadToCache(cacheDirectory, remoteBinary, binaryName);
+            } finally {
+                downloadLock.release();
+            }
+        }
+    }
+
+    private static Path downloadToCache(Path cacheDirectory, RemoteBinary remoteBinary, String binaryName)
+            throws IOException {
+        Path cachedBinary = getCachedBinary(cacheDirectory, remoteBinary.versionId(), binaryName);
+        if (cachedBinary != null)
+            return cachedBinary;
+
+        Path archive = cacheDirectory.resolve(remoteBinary.versionId() + ".zip.part");
+        long startNanos = System.nanoTime();
+        download(remoteBinary, archive);
+        ltLogger.info("Downloaded tunnel binary version {} in {} ms", remoteBinary.versionId(),
+                Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        cachedBinary = extractToCache(archive, cacheDirectory, binaryName);
+        Files.writeString(cacheDirectory.resolve("versions").resolve(remoteBinary.versionId()),
+                cachedBinary.getParent().getFileName().toString(), StandardCharsets.UTF_8);
+        Files.deleteIfExists(archive);
+        Files.deleteIfExists(getProgressFile(archive));
+        return cachedBinary;
+    }
+
+    private static Path getProgressFile(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + ".progress");
+    }
+
+    private static void download(RemoteBinary remoteBinary, Path archive) throws IOException {
+        if (!remoteBinary.isRangeSupported()) {
+            HttpRequest request = HttpRequest.newBuilder(remoteBinary.uri()).timeout(REQUEST_TIMEOUT).GET().build();
+            HttpResponse<Path> response = send(request, HttpResponse.BodyHandlers.ofFile(archive));
+            if (response.statusCode() != 200)
+                throw new IOException("Tunnel binary download returned " + response.statusCode());
+            return;
+        }
+
+        int rangeCount = (int) Math.max(1, Math.min(Integer.getInteger(TUNNEL_BINARY_DOWNLOAD_PARTS, 4),
+                remoteBinary.length() / MIN_RANGE_BYTES));
+        long rangeLength = (remoteBinary.length() + rangeCount - 1) / rangeCount;
+        Set<Integer> completedRanges = readCompletedRanges(archive, remoteBinary.length(), rangeCount);
+        if (!completedRanges.isEmpty())
+            ltLogger.info("Resuming tunnel binary download, {} of {} ranges already downloaded",
+                    completedRanges.size(), rangeCount);
+
+        try (FileChannel archiveChannel = FileChannel.open(archive, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE); ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> ranges = new ArrayList<>();
+            for (int rangeIndex = 0; rangeIndex < rangeCount; rangeIndex++) {
+                if (completedRanges.contains(rangeIndex))
+                    continue;
+                long start = rangeIndex * rangeLength;
+                long end = Math.min(remoteBinary.length(), start + rangeLength) - 1;
+                int index = rangeIndex;
+                ranges.add(executor.submit(() -> {
+                    downloadRange(remoteBinary.uri(), archiveChannel, start, end);
+                    markRangeCompleted(archive, index);
+                    return null;
+                }));
+            }
+            for (Future<Void> range : ranges) {
+                range.get();
+            }
+        } catch (Exception e) {
+            throw new IOException("Tunnel binary download failed, it will resume on the next attempt", e);
+        }
+        if (Files.size(archive) != remoteBinary.length())
+            throw new IOException("Downloaded tunnel binary has " + Files.size(archive) + " bytes instead of " +
+                    remoteBinary.length());
+    }
+
+    /// The whole range request is bounded by the request timeout, as a stalled body would otherwise never time out
+    private static void downloadRange(URI uri, FileChannel archiveChannel, long start, long end) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT)
+                    .header("Range", "bytes=" + start + "-" + end).GET().build();
+            CompletableFuture<HttpResponse<byte[]>> responseFuture = httpClient.sendAsync(request,
+                    HttpResponse.BodyHandlers.ofByteArray());
+            try {
+                HttpResponse<byte[]> response = responseFuture.get(REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                if (response.statusCode() != 206)
+                    throw new IOException("Range request returned " + response.statusCode());
+                if (response.body().length != end - start + 1)
+                    throw new IOException("Range " + start + "-" + end + " returned " + response.body().length + " bytes");
+                ByteBuffer body = ByteBuffer.wrap(response.body());
+                long position = start;
+                while (body.hasRemaining())
+                    position += archiveChannel.write(body, position);
+                return;
+            } catch (IOException | ExecutionException | TimeoutException e) {
+                responseFuture.cancel(true);
+                if (attempt == MAX_RANGE_ATTEMPTS)
+                    throw e;
+                ltLogger.warn("Range {}-{} of tunnel binary failed on attempt {}: {}", start, end, attempt,
+                        e.getMessage());
+            }
+        }
+    }
+
+    /// The progress file starts with the length and range count, ranges of another layout are downloaded again
+    private static Set<Integer> readCompletedRanges(Path archive, long length, int rangeCount) throws IOException {
+        Path progressFile = getProgressFile(archive);
+        String header = length + " " + rangeCount;
+        if (Files.exists(progressFile) && Files.exists(archive)) {
+            List<String> lines = Files.readAllLines(progressFile, StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && lines.getFirst().equals(header)) {
+                Set<Integer> completedRanges = new HashSet<>();
+                lines.stream().skip(1).filter(line -> !line.isBlank())
+                        .forEach(line -> completedRanges.add(Integer.parseInt(line.trim())));
+                return completedRanges;
+            }
+        }
+        Files.deleteIfExists(archive);
+        Files.writeString(progressFile, header + System.lineSeparator(), StandardCharsets.UTF_8);
+        return new HashSet<>();
+    }
+
+    private static void markRangeCompleted(Path archive, int rangeIndex) throws IOException {
+        synchronized (progressFileLock) {
+            Files.writeString(getProgressFile(archive), rangeIndex + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        }
+    }
+
+    /// The binary is stored in a directory named by its checksum, written to a temporary file first so a partly
+    /// written binary is never found in the cache
+    private static Path extractToCache(Path archive, Path cacheDirectory, String binaryName) throws IOException {
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            ZipEntry binaryEntry = zipFile.stream().filter(entry -> !entry.isDirectory() &&
+                            Path.of(entry.getName()).getFileName().toString().equals(binaryName)).findFirst()
+                    .orElseThrow(() -> new IOException("Tunnel binary archive has no " + binaryName));
+            Path extractedBinary = Files.createTempFile(cacheDirectory, binaryName, ".extracting");
+            try (InputStream entryStream = zipFile.getInputStream(binaryEntry)) {
+                Files.copy(entryStream, extractedBinary, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String checksum = sha256(extractedBinary);
+            Path cachedBinary = cacheDirectory.resolve(checksum).resolve(binaryName);
+            Files.createDirectories(cachedBinary.getParent());
+            Files.move(extractedBinary, cachedBinary, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            ltLogger.info("Tunnel binary cached at {}", cachedBinary);
+            return cachedBinary;
+        }
+    }
+
+    /// Copies the binary only when the installed one differs, replacing it atomically
+    private static void install(Path cachedBinary, Path installPath) throws IOException {
+        String checksum = cachedBinary.getParent().getFileName().toString();
+        if (Files.exists(installPath) && checksum.equals(sha256(installPath))) {
+            ltLogger.info("Tunnel binary at {} is up to date", installPath);
+            return;
+        }
+        Path installDirectory = installPath.toAbsolutePath().getParent();
+        Files.createDirectories(installDirectory);
+        Path temporaryBinary = Files.createTempFile(installDirectory, installPath.getFileName().toString(), ".installing");
+        Files.copy(cachedBinary, temporaryBinary, StandardCopyOption.REPLACE_EXISTING);
+        if (!temporaryBinary.toFile().setExecutable(true))
+            ltLogger.warn("Unable to make tunnel binary {} executable", temporaryBinary);
+        Files.move(temporaryBinary, installPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        ltLogger.info("Tunnel binary {} installed at {}", checksum, installPath);
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (DigestInputStream digestStream = new DigestInputStream(Files.newInputStream(file),
+                MessageDigest.getInstance("SHA-256"))) {
+            digestStream.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(digestStream.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException {
+        try {
+            return httpClient.send(request, bodyHandler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while requesting " + request.uri(), e);
+        }
+    }
+}
@@ -2,56 +2,101 @@ package TestManagers;
 
 import DTOs.Others.TunnelInfoResponseDTO;
 import automationHelper.AutomationAPIHelper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.gson.reflect.TypeToken;
-import lombok.SneakyThrows;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import utility.BaseClass;
+import utility.LatencyHistogram;
+import utility.Poller;
+import utility.PortAllocator;
+import utility.ProcessSupervisor;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.TimeoutException;
 
 import static utility.EnvSetup.*;
 import static utility.FrameworkConstants.*;
 
-public class TunnelManager extends BaseClass implements Runnable {
+public class TunnelManager extends BaseClass {
 
     // Tunnel Constants
     private static final Map<String, String> TUNNEL_BINARY_PATHS = Map.of("win", "./LT_Win/LT.exe", "mac", "./LT_Mac/LT",
             "linux", "./LT_Linux/LT");
-    private static final String[] TUNNEL_MODES = {"tcp", "ssh"};
+    public static final List<String> TUNNEL_MODES = List.of("tcp", "ssh", "ws");
     private final Logger ltLogger = LogManager.getLogger(TunnelManager.class);
-    private static final String commandToPushConsoleLogsToFile = " > logs/tunnelLogs/%s-debug-logs.log 2>&1";
+    private static final String TUNNEL_DEBUG_LOGS_PATH = "logs/tunnelLogs/%s-debug-logs.log";
+    private static final int TUNNEL_OUTPUT_BUFFER_LINES = 500;
+    private static final Duration TUNNEL_STOP_GRACE_PERIOD = Duration.ofSeconds(5);
+    private static final String TUNNEL_STARTED_MESSAGE = "You can start testing now";
+    /// Log lines after which the tunnel won't become ready, so readiness fails without waiting for the timeout
+    private static final List<String> FATAL_TUNNEL_LOG_MESSAGES = List.of("Failed to start api server on port");
+    private static final Duration TUNNEL_READY_TIMEOUT = Duration.ofSeconds(60);
 
     // Tunnel Flag Details
     private final String tunnelBinaryPath = getTunnelBinaryPath();
-    private final String customTunnelFlagsString = System.getProperty(CUSTOM_TUNNEL_FLAGS, "");
     private final Map<String, Object> defaultTunnelFlags;
-    private final String availableOpenPort;
+    /// Leased from the PortAllocator until the tunnel is stopped, null when no port is leased
+    private String availableOpenPort;
     private String tunnelName = getRandomAlphaNumericString(30);
 
     // Variables
-    private String tunnelRunCommand;
-    private Thread thread;
+    private List<String> tunnelRunCommand;
+    private ProcessSupervisor tunnelProcess;
+    private volatile boolean isTunnelStarted = false;
+    private CompletableFuture<TunnelReadiness> tunnelReadiness;
+
+    /// `signal` is the source which reported the tunnel ready first, the tunnel log or the tunnel info API
+    public record TunnelReadiness(String signal, long timeToReadyMillis) {
+    }
 
     public TunnelManager() {
-        availableOpenPort = getOpenPort();
+        this(testUserName.get(), testAccessKey.get());
+    }
+
+    /// Tunnels started outside a scenario thread, e.g. by the tunnel pool, get the user credentials explicitly
+    public TunnelManager(String userName, String accessKey) {
         String logFilePath = "logs/tunnelLogs/" + tunnelName + ".log";
         defaultTunnelFlags = new HashMap<>(
-                Map.of("key", testAccessKey.get(), "user", testUserName.get(), "tunnelName", tunnelName, "maxDataConnections",
-                        "1", "verbose", "", "infoAPIPort", availableOpenPort, "logFile", logFilePath, "mitm", ""));
+                Map.of("key", accessKey, "user", userName, "tunnelName", tunnelName, "maxDataConnections",
+                        "1", "verbose", "", "logFile", logFilePath, "mitm", ""));
         if (TEST_ENV.contains("stage")) {
             defaultTunnelFlags.put("env", TEST_ENV);
         }
+        leaseInfoAPIPort();
+    }
+
+    private void leaseInfoAPIPort() {
+        availableOpenPort = String.valueOf(PortAllocator.allocate(tunnelName + "@" + Thread.currentThread().getName()));
+        defaultTunnelFlags.put("infoAPIPort", availableOpenPort);
+    }
+
+    private void releaseInfoAPIPort() {
+        if (availableOpenPort == null)
+            return;
+        PortAllocator.release(Integer.parseInt(availableOpenPort));
+        availableOpenPort = null;
+    }
+
+    /// Another process may have bound the leased port since it was allocated, the tunnel would then fail to start its
+    /// info API and have to be relaunched
+    private void ensureInfoAPIPortIsFree() {
+        if (availableOpenPort != null && PortAllocator.isPortFree(Integer.parseInt(availableOpenPort)))
+            return;
+        if (availableOpenPort != null)
+            ltLogger.warn("Info API port {} of tunnel {} is taken by another process, leasing a new one",
+                    availableOpenPort, tunnelName);
+        releaseInfoAPIPort();
+        leaseInfoAPIPort();
     }
 
     public static String getTunnelBinaryPath() {
@@ -70,162 +115,227 @@ public class TunnelManager extends BaseClass implements Runnable {
         }
     }
 
-    private String constructTunnelRunCommand(String params) {
+    /// Flags given for the tunnel on top of the default flags, the custom tunnel flags of the run win over the params
+    public static Map<String, Object> getGivenTunnelFlags(String params) {
+        BaseClass baseClass = new BaseClass();
+        Map<String, Object> givenTunnelFlags = new HashMap<>(baseClass.getHashMapFromString(params, "--", " "));
+        givenTunnelFlags.putAll(baseClass.getHashMapFromString(System.getProperty(CUSTOM_TUNNEL_FLAGS, ""), "--", " "));
+        return givenTunnelFlags;
+    }
+
+    private List<String> constructTunnelRunCommand(String params) {
         ltLogger.info("Given custom tunnel params: {}", params);
         Map<String, Object> tunnelFlags = new HashMap<>(defaultTunnelFlags);
-        tunnelFlags.putAll(getHashMapFromString(params, "--", " "));
-        tunnelFlags.putAll(getHashMapFromString(customTunnelFlagsString, "--", " "));
+        tunnelFlags.putAll(getGivenTunnelFlags(params));
 
-        String command = tunnelBinaryPath + " " + tunnelFlags.entrySet().stream().map(
-                entry -> "--" + entry.getKey() + ((entry.getValue() != null && !entry.getValue().toString().isEmpty()) ?
-                        " " + entry.getValue() :
-                        "")).collect(Collectors.joining(" "));
+        List<String> command = new ArrayList<>(List.of(tunnelBinaryPath));
+        tunnelFlags.forEach((flag, value) -> {
+            command.add("--" + flag);
+            if (value != null && !value.toString().isEmpty())
+                command.add(value.toString());
+        });
 
         tunnelName = tunnelFlags.get("tunnelName").toString();
-        TEST_TUNNEL_NAME.set(tunnelName);
-        TEST_TUNNEL_INFO_API_PORT.set(availableOpenPort);
-        command = String.format(command + commandToPushConsoleLogsToFile, tunnelName);
-        ltLogger.info("Tunnel run command: {}", command);
-        TEST_REPORT.get().put("tunnel_start_command", command);
+        ltLogger.info("Tunnel run command: {}", String.join(" ", command));
         return command;
     }
 
-    @Override
-    public void run() {
-        runMacShellCommand(wrapCommandForShellInvocation(tunnelRunCommand));
+    public void startTunnel(String params) {
+        launchTunnel(params);
+        publishTunnelDetails();
     }
 
-    public void startTunnel(String params) {
+    /// Starts the tunnel process without touching the data of the calling scenario thread
+    public void launchTunnel(String params) {
         // Create logs directory if it doesn't exist so that tunnel debug logs can be stored
         String tunnelLogsDirectory = "logs/tunnelLogs";
         createDirectoryIfNotExists(tunnelLogsDirectory);
 
+        if (tunnelProcess == null)
+            ensureInfoAPIPortIsFree();
         tunnelRunCommand = constructTunnelRunCommand(params);
-        TUNNEL_START_COMMAND.set(tunnelRunCommand);
-        ltLogger.info("Tunnel started with command: {}", tunnelRunCommand);
-        if (thread == null) {
-            thread = new Thread(this, tunnelName);
-            thread.start();
+        if (tunnelProcess == null) {
+            long startNanos = System.nanoTime();
+            tunnelProcess = ProcessSupervisor.start(tunnelName, tunnelRunCommand, TUNNEL_OUTPUT_BUFFER_LINES,
+                    String.format(TUNNEL_DEBUG_LOGS_PATH, tunnelName));
+            ltLogger.info("Tunnel started with PID: {}", tunnelProcess.pid());
+            tunnelReadiness = watchTunnelReadiness(tunnelProcess, startNanos);
         }
     }
 
-    public String state() {
-        return thread.getState().toString();
+    /// Makes the scenario thread use this tunnel, its name is injected into the test capabilities
+    public void publishTunnelDetails() {
+        String commandString = String.join(" ", tunnelRunCommand);
+        TEST_TUNNEL_NAME.set(tunnelName);
+        TEST_TUNNEL_INFO_API_PORT.set(availableOpenPort);
+        TUNNEL_START_COMMAND.set(commandString);
+        TEST_REPORT.get().put("tunnel_start_command", commandString);
+        TunnelReadiness readiness = tunnelReadiness == null ? null : tunnelReadiness.getNow(null);
+        if (readiness != null) {
+            TEST_REPORT.get().put(TUNNEL_TIME_TO_READY, String.valueOf(readiness.timeToReadyMillis() / 1000.00));
+            TEST_REPORT.get().put("tunnel_ready_signal", readiness.signal());
+        }
     }
 
-    @SneakyThrows
-    public boolean checkTunnelInfoAPIServerIsInitiated() {
-        boolean isAPIServerStarted = true;
-        for (int i = 0; i < 5; i++) {
-            if (getCommandStdOutput().contains("Failed to start api server on port")) {
-                ltLogger.warn("Tunnel info API server status: {}", getCommandStdOutput());
-                ltLogger.info("APIServer is not started with {} port. So re-launching the tunnel with new port",
-                        availableOpenPort);
-                isAPIServerStarted = false;
-                clearGetCommandStdOutput();
-                break;
-            }
-            TimeUnit.SECONDS.sleep(3);
+    /// Starts a tunnel, relaunching it with a new info API port if it fails to get ready
+    /// Throws when no attempt gets the tunnel ready, the tunnels of failed attempts are stopped
+    public static TunnelManager startTunnelWithRetries(String params, String userName, String accessKey) {
+        int maxTunnelStartRetry = 2;
+        for (int attempt = 1; attempt <= maxTunnelStartRetry; attempt++) {
+            TunnelManager tunnelManager = new TunnelManager(userName, accessKey);
+            tunnelManager.launchTunnel(params);
+            if (tunnelManager.waitForTunnelToBeReady())
+                return tunnelManager;
+            tunnelManager.stopTunnel();
+            if (attempt < maxTunnelStartRetry)
+                tunnelManager.ltLogger.info("Re-launching the tunnel with a new info API port");
+        }
+        throw new RuntimeException("Tunnel with params '" + params + "' was not ready after " + maxTunnelStartRetry +
+                " attempts");
+    }
+
+    /// Completes as soon as the tunnel log or the tunnel info API reports the tunnel connected, and fails as soon as
+    /// the tunnel logs a fatal error or exits
+    private CompletableFuture<TunnelReadiness> watchTunnelReadiness(ProcessSupervisor process, long startNanos) {
+        CompletableFuture<TunnelReadiness> readiness = new CompletableFuture<>();
+        process.awaitLine(TUNNEL_STARTED_MESSAGE).thenAccept(line -> {
+            isTunnelStarted = true;
+            readiness.complete(new TunnelReadiness("tunnel_log", elapsedMillis(startNanos)));
+        });
+        for (String fatalLogMessage : FATAL_TUNNEL_LOG_MESSAGES) {
+            process.awaitLine(fatalLogMessage).thenAccept(line -> readiness.completeExceptionally(
+                    new IllegalStateException("Tunnel logged a fatal error: " + line)));
         }
-        return isAPIServerStarted;
+        process.onExit().thenAccept(exitedProcess -> readiness.completeExceptionally(new IllegalStateException(
+                "Tunnel process exited with code " + exitedProcess.exitValue() + " before it was ready")));
+        Thread.ofVirtual().name(tunnelName + "-info-api").start(() -> {
+            if (pollTunnelInfoAPIUntilReady(readiness))
+                readiness.complete(new TunnelReadiness("tunnel_info_api", elapsedMillis(startNanos)));
+        });
+        return readiness.orTimeout(TUNNEL_READY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    public String state() {
+        return tunnelProcess != null && tunnelProcess.isAlive() ? "RUNNING" : "TERMINATED";
+    }
+
+    /// Latest lines logged by the tunnel binary
+    public String getTunnelOutput() {
+        return tunnelProcess == null ? "" : tunnelProcess.getOutput();
     }
 
-    @SneakyThrows
-    public boolean getTunnelStatusFromAPIServer() {
+    /// Stops polling once readiness is decided by another signal
+    private boolean pollTunnelInfoAPIUntilReady(CompletableFuture<TunnelReadiness> readiness) {
         String url = LOCAL_HOST_URL + availableOpenPort + TUNNEL_INFO_API_PATH;
         ltLogger.info("Tunnel info API URL: {}", url);
 
         AutomationAPIHelper apiManager = new AutomationAPIHelper();
-        int maxRetries = 12;
-        int retryDelay = 5;
-
-        return IntStream.range(0, maxRetries).mapToObj(i -> {
-            try {
-                String tunnelResponse = apiManager.getRequestAsString(url);
-                ltLogger.info("Tunnel info API server response -> {}", tunnelResponse);
-                if (tunnelResponse.contains("\"status\":\"SUCCESS\"") && tunnelResponse.contains(tunnelName)) {
-                    return true;
-                }
-            } catch (Exception e) {
-                ltLogger.error("Exception Occurred -> {}", e.getMessage());
-            }
+        Poller.Result<String> result = Poller.poll("tunnel_info_api", () -> {
+            if (readiness.isDone())
+                return null;
+            String tunnelResponse = apiManager.getRequestAsString(url);
+            ltLogger.info("Tunnel info API server response -> {}", tunnelResponse);
+            return tunnelResponse;
+        }).until(tunnelResponse -> readiness.isDone() || (tunnelResponse != null &&
+                        tunnelResponse.contains("\"status\":\"SUCCESS\"") && tunnelResponse.contains(tunnelName)))
+                .initialDelay(Duration.ofMillis(250)).maxDelay(Duration.ofSeconds(1)).timeout(TUNNEL_READY_TIMEOUT).run();
+        return result.isSuccess() && result.value() != null;
+    }
 
-            if (i < maxRetries - 1) {
-                ltLogger.info("Looks like Tunnel is not started. Sleeping for {} seconds...", retryDelay);
-                waitForTime(retryDelay);
-            }
+    /// Waits for the tunnel to be ready. Returns false if the tunnel failed to start or wasn't ready in time, the
+    /// caller can then relaunch it.
+    public boolean waitForTunnelToBeReady() {
+        try {
+            TunnelReadiness readiness = getTunnelReadiness().join();
+            ltLogger.info("Tunnel {} is ready after {} ms, reported by {}", tunnelName, readiness.timeToReadyMillis(),
+                    readiness.signal());
+            LatencyHistogram.forName(TUNNEL_HISTOGRAM_PREFIX + "time_to_ready").record(readiness.timeToReadyMillis());
+            return true;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() instanceof TimeoutException ?
+                    new TimeoutException("Tunnel is not ready after " + TUNNEL_READY_TIMEOUT) :
+                    e.getCause();
+            ltLogger.error("Tunnel {} failed to start: {}\nTunnel logs: {}", tunnelName, cause.getMessage(),
+                    getTunnelOutput());
             return false;
-        }).filter(Boolean::booleanValue).findFirst().orElseThrow(() -> new RuntimeException(
-                "Tunnel is not started even after waiting for 60 seconds.\nTunnel logs: " + getCommandStdOutput()));
+        }
+    }
+
+    public CompletableFuture<TunnelReadiness> getTunnelReadiness() {
+        if (tunnelReadiness == null)
+            throw new IllegalStateException("Tunnel " + tunnelName + " is not started");
+        return tunnelReadiness;
     }
 
     public boolean isTunnelStarted() {
-        return getCommandStdOutput().contains("You can start testing now");
+        return isTunnelStarted;
     }
 
-    private ProcessBuilder stopTunnelCLI() {
-        List<String> stopTunnelCLICommand = Arrays.asList("/bin/sh", "-c",
-                "ps -ef | grep '" + tunnelName + "' | grep -v grep | awk '{print $2}' | xargs kill -9");
-        this.ltLogger.info("Tunnel Stop Command :- {}", stopTunnelCLICommand);
-        return new ProcessBuilder(stopTunnelCLICommand);
+    /// One info API call, for periodic health checks of a running tunnel
+    public boolean isTunnelHealthy() {
+        if (tunnelProcess == null || !tunnelProcess.isAlive())
+            return false;
+        try {
+            String tunnelResponse = new AutomationAPIHelper().getRequestAsString(
+                    LOCAL_HOST_URL + availableOpenPort + TUNNEL_INFO_API_PATH);
+            return tunnelResponse != null && tunnelResponse.contains("\"status\":\"SUCCESS\"") && tunnelResponse.contains(
+                    tunnelName);
+        } catch (Exception e) {
+            ltLogger.warn("Tunnel {} health check failed: {}", tunnelName, e.getMessage());
+            return false;
+        }
+    }
+
+    public String getTunnelName() {
+        return tunnelName;
     }
 
-    @SneakyThrows
+    /// Stops the tunnel process started by this manager, by its PID
     public void stopTunnel() {
-        ProcessBuilder stopTunnelCLICommand = stopTunnelCLI();
-        Process process = stopTunnelCLICommand.start();
-        ltLogger.info("Reading tunnel stop process error output (if any) ...");
-
-        try (BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-            String line;
-            while ((line = errorReader.readLine()) != null) {
-                ltLogger.error(line);
-            }
+        if (tunnelProcess == null) {
+            ltLogger.warn("Tunnel {} was not started, nothing to stop", tunnelName);
+            releaseInfoAPIPort();
+            return;
         }
-        int exitCode = process.waitFor();
-        ltLogger.info("Process exited with code :- {}", exitCode);
+        tunnelProcess.stop(TUNNEL_STOP_GRACE_PERIOD);
+        releaseInfoAPIPort();
+        tunnelProcess = null;
+        tunnelReadiness = null;
+        isTunnelStarted = false;
     }
 
-    @SneakyThrows
     public TunnelInfoResponseDTO getTunnelInfoDetails() {
         String url = LOCAL_HOST_URL + availableOpenPort + TUNNEL_INFO_API_PATH;
         AutomationAPIHelper apiManager = new AutomationAPIHelper();
-        int maxRetries = 5;
-        int retryDelay = 2;
-
-        for (int i = 0; i < maxRetries; i++) {
-            try {
-                String tunnelResponse = apiManager.getRequestAsString(url);
-
-                if (tunnelResponse != null && !tunnelResponse.isEmpty()) {
-                    try {
-                        TunnelInfoResponseDTO tunnelInfo = convertJsonStringToPojo(tunnelResponse,
-                                new TypeToken<TunnelInfoResponseDTO>() {
-                                });
-
-                        ObjectMapper mapper = new ObjectMapper();
-                        mapper.enable(SerializationFeature.INDENT_OUTPUT);
-                        String prettyJson = mapper.writeValueAsString(tunnelInfo);
-                        ltLogger.info("Tunnel info API response: {}", prettyJson);
-
-                        if ("SUCCESS".equals(tunnelInfo.getStatus()) && tunnelInfo.getData() != null) {
-                            return tunnelInfo;
-                        }
-                    } catch (Exception parseException) {
-                        ltLogger.error("Failed to parse tunnel info response: {}", parseException.getMessage());
-                    }
-                }
-            } catch (Exception e) {
-                ltLogger.error("Exception occurred while getting tunnel info details -> {}", e.getMessage());
+        Poller.Result<TunnelInfoResponseDTO> result = Poller.poll("tunnel_info_details_api", () -> {
+            String tunnelResponse = apiManager.getRequestAsString(url);
+            if (tunnelResponse == null || tunnelResponse.isEmpty()) {
+                return null;
             }
-
-            if (i < maxRetries - 1) {
-                ltLogger.info("Retrying to get tunnel info in {} seconds...", retryDelay);
-                waitForTime(retryDelay);
+            TunnelInfoResponseDTO tunnelInfo = convertJsonStringToPojo(tunnelResponse,
+                    new TypeToken<TunnelInfoResponseDTO>() {
+                    });
+            try {
+                ObjectMapper mapper = new ObjectMapper();
+                mapper.enable(SerializationFeature.INDENT_OUTPUT);
+                ltLogger.info("Tunnel info API response: {}", mapper.writeValueAsString(tunnelInfo));
+            } catch (JsonProcessingException e) {
+                ltLogger.error("Failed to format tunnel info response: {}", e.getMessage());
             }
+            return tunnelInfo;
+        }).until(tunnelInfo -> tunnelInfo != null && "SUCCESS".equals(tunnelInfo.getStatus()) && tunnelInfo.getData() != null)
+                .initialDelay(Duration.ofMillis(250)).maxDelay(Duration.ofSeconds(2)).timeout(Duration.ofSeconds(8))
+                .run();
+
+        if (!result.isSuccess()) {
+            throw new RuntimeException("Failed to get tunnel info details after " + result.attempts() + " attempts",
+                    result.lastException());
         }
-
-        throw new RuntimeException("Failed to get tunnel info details after " + maxRetries + " attempts");
+        return result.value();
     }
 
     public String getCurrentTunnelMode() {
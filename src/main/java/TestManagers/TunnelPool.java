@@ -0,0 +1,159 @@
+package TestManagers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static utility.FrameworkConstants.TUNNEL_POOL_HEALTH_CHECK_INTERVAL_SECONDS;
+
+/// Running tunnels shared by scenarios tagged with `@shared_tunnel`, keyed by user and normalized tunnel flags.
+/// A scenario leases a tunnel for itself and returns it on stop, so the next scenario asking for the same flags doesn't
+/// pay for a tunnel start. Idle tunnels are health checked in the background and relaunched when they fail.
+/// Scenarios testing the tunnel lifecycle (restart, stop via API, reconnection) keep dedicated tunnels.
+public final class TunnelPool {
+    private static final Logger ltLogger = LogManager.getLogger(TunnelPool.class);
+
+    /// Flags which differ for every tunnel and so are not part of the pool key
+    private static final Set<String> PER_TUNNEL_FLAGS = Set.of("tunnelName", "infoAPIPort", "logFile");
+
+    private static final ConcurrentHashMap<String, Deque<PooledTunnel>> idleTunnels = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<TunnelManager, PooledTunnel> leasedTunnels = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("tunnel-pool-health-check").daemon().unstarted(runnable));
+
+    private static final LongAdder started = new LongAdder();
+    private static final LongAdder reused = new LongAdder();
+    private static final LongAdder restartedUnhealthy = new LongAdder();
+    private static final LongAdder discardedUnhealthy = new LongAdder();
+
+    private record PooledTunnel(TunnelManager tunnelManager, String key, String params, String userName,
+                                String accessKey, Thread leaseHolder) {
+        private PooledTunnel withLeaseHolder(Thread thread) {
+            return new PooledTunnel(tunnelManager, key, params, userName, accessKey, thread);
+        }
+    }
+
+    static {
+        long intervalSeconds = Long.getLong(TUNNEL_POOL_HEALTH_CHECK_INTERVAL_SECONDS, 30);
+        healthChecker.scheduleWithFixedDelay(TunnelPool::checkIdleTunnels, intervalSeconds, intervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    private TunnelPool() {
+    }
+
+    /// Tunnels with a fixed name can't be shared, as two tunnels can't run with the same name
+    public static boolean isShareable(String params) {
+        return !getNormalizedFlags(params).containsKey("tunnelName");
+    }
+
+    /// `--flag=value` and `--flag value` give the same flags, sorted so the flag order doesn't matter
+    private static Map<String, String> getNormalizedFlags(String params) {
+        Map<String, String> normalizedFlags = new TreeMap<>();
+        TunnelManager.getGivenTunnelFlags(params).forEach((flag, value) -> {
+            String[] flagAndValue = value == null ? flag.split("=", 2) : new String[]{flag, value.toString()};
+            normalizedFlags.put(flagAndValue[0], flagAndValue.length > 1 ? flagAndValue[1].trim() : "");
+        });
+        return normalizedFlags;
+    }
+
+    private static String getKey(String params, String userName) {
+        Map<String, String> normalizedFlags = getNormalizedFlags(params);
+        normalizedFlags.keySet().removeAll(PER_TUNNEL_FLAGS);
+        return userName + "|" + normalizedFlags;
+    }
+
+    /// Leases an idle tunnel started with the same flags, or starts a new one. Throws when the new tunnel doesn't get
+    /// ready, nothing is leased then.
+    public static TunnelManager acquire(String params, String userName, String accessKey) {
+        String key = getKey(params, userName);
+        PooledTunnel idleTunnel;
+        while ((idleTunnel = idleTunnels.getOrDefault(key, new ArrayDeque<>()).pollFirst()) != null) {
+            if (idleTunnel.tunnelManager().isTunnelHealthy()) {
+                reused.increment();
+                ltLogger.info("Reusing tunnel {} for flags: {}", idleTunnel.tunnelManager().getTunnelName(), key);
+                return lease(idleTunnel);
+            }
+            discard(idleTunnel);
+        }
+        TunnelManager tunnelManager = TunnelManager.startTunnelWithRetries(params, userName, accessKey);
+        started.increment();
+        ltLogger.info("Started tunnel {} for the pool with flags: {}", tunnelManager.getTunnelName(), key);
+        return lease(new PooledTunnel(tunnelManager, key, params, userName, accessKey, null));
+    }
+
+    private static TunnelManager lease(PooledTunnel tunnel) {
+        leasedTunnels.put(tunnel.tunnelManager(), tunnel.withLeaseHolder(Thread.currentThread()));
+        return tunnel.tunnelManager();
+    }
+
+    public static boolean isLeased(TunnelManager tunnelManager) {
+        return tunnelManager != null && leasedTunnels.containsKey(tunnelManager);
+    }
+
+    /// Returns the tunnel to the pool if it is still running, else stops it. Releasing twice does nothing.
+    public static void release(TunnelManager tunnelManager) {
+        PooledTunnel tunnel = leasedTunnels.remove(tunnelManager);
+        if (tunnel == null)
+            return;
+        if (!tunnelManager.isTunnelHealthy()) {
+            discard(tunnel);
+            return;
+        }
+        idleTunnels.computeIfAbsent(tunnel.key(), key -> new ConcurrentLinkedDeque<>())
+                .addFirst(tunnel.withLeaseHolder(null));
+        ltLogger.info("Tunnel {} returned to the pool", tunnelManager.getTunnelName());
+    }
+
+    /// Returns the tunnels a scenario didn't stop, e.g. because it failed before its stop step
+    public static void releaseLeasesOfCurrentThread() {
+        leasedTunnels.values().stream().filter(tunnel -> tunnel.leaseHolder() == Thread.currentThread()).toList()
+                .forEach(tunnel -> release(tunnel.tunnelManager()));
+    }
+
+    private static void checkIdleTunnels() {
+        idleTunnels.values().forEach(tunnels -> tunnels.forEach(tunnel -> {
+            if (tunnel.tunnelManager().isTunnelHealthy() || !tunnels.remove(tunnel))
+                return;
+            discard(tunnel);
+            try {
+                TunnelManager tunnelManager = TunnelManager.startTunnelWithRetries(tunnel.params(), tunnel.userName(),
+                        tunnel.accessKey());
+                if (tunnelManager.isTunnelHealthy()) {
+                    tunnels.addLast(new PooledTunnel(tunnelManager, tunnel.key(), tunnel.params(), tunnel.userName(),
+                            tunnel.accessKey(), null));
+                    restartedUnhealthy.increment();
+                    ltLogger.info("Relaunched unhealthy pooled tunnel as {}", tunnelManager.getTunnelName());
+                } else {
+                    tunnelManager.stopTunnel();
+                }
+            } catch (Exception e) {
+                ltLogger.warn("Unable to relaunch pooled tunnel for flags {}: {}", tunnel.key(), e.getMessage());
+            }
+        }));
+    }
+
+    private static void discard(PooledTunnel tunnel) {
+        discardedUnhealthy.increment();
+        ltLogger.warn("Pooled tunnel {} is not healthy, stopping it", tunnel.tunnelManager().getTunnelName());
+        try {
+            tunnel.tunnelManager().stopTunnel();
+        } catch (Exception e) {
+            ltLogger.warn("Unable to stop pooled tunnel {}: {}", tunnel.tunnelManager().getTunnelName(), e.getMessage());
+        }
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("started", started.sum());
+        metrics.put("reused", reused.sum());
+        metrics.put("restarted_unhealthy", restartedUnhealthy.sum());
+        metrics.put("discarded_unhealthy", discardedUnhealthy.sum());
+        metrics.put("idle", idleTunnels.values().stream().mapToInt(Deque::size).sum());
+        metrics.put("leased", leasedTunnels.size());
+        return metrics;
+    }
+}
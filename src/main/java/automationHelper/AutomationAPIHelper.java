@@ -9,6 +9,7 @@ import DTOs.SwaggerAPIs.GetBuildResponseDTO;
 import DTOs.SwaggerAPIs.GetSessionResponseDTO;
 import DTOs.SwaggerAPIs.UploadBrowserProfileResponseDTO;
 import TestManagers.ApiManager;
+import TestManagers.CapabilityReferenceData;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -23,12 +24,17 @@ import org.apache.logging.log4j.Logger;
 import utility.CustomAssert;
 import utility.EnvSetup;
 import utility.FileLockUtility;
+import utility.Poller;
+import utility.SingleFlightCache;
 
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -40,9 +46,24 @@ public class AutomationAPIHelper extends ApiManager {
 
     private final Logger ltLogger = LogManager.getLogger(AutomationAPIHelper.class);
 
+    /// Shared across all helper instances, so lookups of different fields of the same session reuse one API response
+    private static final SingleFlightCache<String, GetSessionResponseDTO> sessionDetailsCache = new SingleFlightCache<>(
+            "Session details", Integer.getInteger(SESSION_DETAILS_CACHE_TTL_SECONDS, 3), TimeUnit.SECONDS);
+
+    /// Test details API responses keyed by the session or test id used for the lookup
+    /// Details which change while the session runs and on quit, they are always read from the API
+    private static final Set<sessionDetailsAPIKeys> LIVE_SESSION_DETAILS = Set.of(sessionDetailsAPIKeys.STATUS_IND);
+
+    private static final SingleFlightCache<String, JsonNode> testDetailsCache = new SingleFlightCache<>("Test details",
+            Integer.getInteger(TEST_DETAILS_CACHE_TTL_SECONDS, 300), TimeUnit.SECONDS);
+
     private record APIConfig(String apiBase, String userName, String accessKey) {
     }
 
+    /// Command counts of one session from the test details API
+    public record CommandCounts(int commandCount, int exceptionCount, int visualCommandCount) {
+    }
+
     private APIConfig getAPIConfigsBasedOnSessionType(boolean... isClientTest) {
         boolean isClient = isClientTest.length > 0 && isClientTest[0];
         ltLogger.info("Using API Configs for {} session", isClient ? "Client" : "Test");
@@ -51,13 +72,15 @@ public class AutomationAPIHelper extends ApiManager {
                 isClient ? clientTestAccessKey.get() : testAccessKey.get());
     }
 
-    public void updateSessionDetailsViaAPI(String session_id, HashMap<String, String> sessionDetails,
+    public void updateSessionDetailsViaAPI(String session_id, Map<String, ?> sessionDetails,
                                            boolean... isClientTest) {
         APIConfig apiConfig = getAPIConfigsBasedOnSessionType(isClientTest);
         String sessionAPIUrl = constructAPIUrl(apiConfig.apiBase(), SESSIONS_API_ENDPOINT, session_id);
         ltLogger.info("Update Session Details: {}", sessionDetails);
         Response response = patchRequestWithBasicAuth(sessionAPIUrl, apiConfig.userName(), apiConfig.accessKey(),
                 sessionDetails);
+        sessionDetailsCache.invalidate(getSessionDetailsCacheKey(apiConfig, session_id));
+        testDetailsCache.invalidate(getTestDetailsCacheKey(session_id));
         ltLogger.info("Update Session Details Response Body: {}", response.getBody().asString());
         ltLogger.info("Update Session Details Response Code: {}", response.getStatusCode());
     }
@@ -67,10 +90,6 @@ public class AutomationAPIHelper extends ApiManager {
                                                   boolean... isClientTest) {
         APIConfig apiConfig = getAPIConfigsBasedOnSessionType(isClientTest);
 
-        final int maxRetries = 10;
-        final int retryDelaySecs = 5;
-        Exception lastException = null;
-
         Field field;
         try {
             field = GetSessionResponseDTO.Data.class.getDeclaredField(requiredDetail.getValue());
@@ -79,38 +98,61 @@ public class AutomationAPIHelper extends ApiManager {
             throw new IllegalArgumentException("Invalid field requested: " + requiredDetail, e);
         }
 
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+        String cacheKey = getSessionDetailsCacheKey(apiConfig, sessionId);
+        String sessionAPIUrl = constructAPIUrl(apiConfig.apiBase(), SESSIONS_API_ENDPOINT, sessionId);
+        boolean isLiveDetail = LIVE_SESSION_DETAILS.contains(requiredDetail);
+        Poller.Result<Object> result = Poller.poll("session_details_api", () -> {
+            GetSessionResponseDTO getSessionResponseDTO = isLiveDetail ?
+                    fetchSessionDetails(apiConfig, sessionAPIUrl) :
+                    sessionDetailsCache.get(cacheKey, key -> fetchSessionDetails(apiConfig, sessionAPIUrl));
             try {
-                String sessionAPIUrl = constructAPIUrl(apiConfig.apiBase(), SESSIONS_API_ENDPOINT, sessionId);
-                String sessionResponse = getRequestWithBasicAuthAsString(sessionAPIUrl, apiConfig.userName(),
-                        apiConfig.accessKey());
-
-                GetSessionResponseDTO getSessionResponseDTO = convertJsonStringToPojo(sessionResponse,
-                        new TypeToken<GetSessionResponseDTO>() {
-                        });
-
                 Object value = field.get(getSessionResponseDTO.getData());
-                if (value != null) {
-                    return value;
-                }
-                throw new RuntimeException(
-                        "Field '" + requiredDetail + "' value is null in Session details API response. URL: " + sessionAPIUrl);
-
-            } catch (Exception e) {
-                lastException = e;
-                ltLogger.error("Attempt {}/{} failed to get session details {}: {}", attempt, maxRetries, requiredDetail,
-                        e.getMessage());
-
-                if (attempt < maxRetries) {
-                    waitForTime(retryDelaySecs);
+                if (value == null) {
+                    // The cached response didn't have the required detail, next attempt should fetch a fresh response
+                    sessionDetailsCache.invalidate(cacheKey);
+                    ltLogger.warn("Field '{}' value is null in Session details API response. URL: {}", requiredDetail,
+                            sessionAPIUrl);
                 }
+                return value;
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
             }
-        }
+        }).until(Objects::nonNull).initialDelay(Duration.ofMillis(500)).maxDelay(Duration.ofSeconds(5))
+                .timeout(Duration.ofSeconds(45)).run();
 
+        if (result.isSuccess()) {
+            return result.value();
+        }
+        sessionDetailsCache.invalidate(cacheKey);
         String errorMessage = String.format(
-                "Unable to extract %s detail from Session details api response after %d attempts", requiredDetail, maxRetries);
+                "Unable to extract %s detail from Session details api response after %d attempts", requiredDetail,
+                result.attempts());
         ltLogger.error(errorMessage);
-        throw new RuntimeException(errorMessage, lastException);
+        throw new RuntimeException(errorMessage, result.lastException());
+    }
+
+    private GetSessionResponseDTO fetchSessionDetails(APIConfig apiConfig, String sessionAPIUrl) {
+        String sessionResponse = getRequestWithBasicAuthAsString(sessionAPIUrl, apiConfig.userName(),
+                apiConfig.accessKey());
+        return convertJsonStringToPojo(sessionResponse, new TypeToken<GetSessionResponseDTO>() {
+        });
+    }
+
+    /// Status, end time and duration change when the session is quit, so the response cached while it ran is dropped
+    public void invalidateSessionDetailsCache(String session_id, boolean... isClientTest) {
+        sessionDetailsCache.invalidate(getSessionDetailsCacheKey(getAPIConfigsBasedOnSessionType(isClientTest), session_id));
+    }
+
+    public static Map<String, Object> getSessionDetailsCacheMetrics() {
+        return sessionDetailsCache.getMetrics();
+    }
+
+    public static Map<String, Object> getTestDetailsCacheMetrics() {
+        return testDetailsCache.getMetrics();
+    }
+
+    private String getSessionDetailsCacheKey(APIConfig apiConfig, String sessionId) {
+        return apiConfig.apiBase() + "/" + sessionId;
     }
 
     public Object getSpecificBuildDetailsViaAPI(String build_id, buildDetailsAPIKeys requiredDetail) {
@@ -140,6 +182,10 @@ public class AutomationAPIHelper extends ApiManager {
         return status;
     }
 
+    public CompletableFuture<String> getStatusOfSessionViaAPIAsync(String session_id, boolean... isClientTest) {
+        return supplyAsync(() -> getStatusOfSessionViaAPI(session_id, isClientTest));
+    }
+
     public String getBuildIdFromSessionId(String session_id) {
         String buildId;
         String cachedBuildId = EnvSetup.BUILD_ID.get();
@@ -209,6 +255,7 @@ public class AutomationAPIHelper extends ApiManager {
         geoLocationFetchAPI = handleCapabilityGeneratorAPIsForGDPRUser(geoLocationFetchAPI);
         ltLogger.info("API for GEO location fetch: {}", geoLocationFetchAPI);
         fetchDataAndWriteResponseToFile(geoLocationFetchAPI, GEOLOCATION_DATA_PATH);
+        CapabilityReferenceData.refreshGeoLocations(GEOLOCATION_DATA_PATH);
     }
 
     public String getSeleniumVersionBasedOnKeyWord(String seleniumKeyWord, String browserName, String browserVersion,
@@ -347,36 +394,35 @@ public class AutomationAPIHelper extends ApiManager {
     }
 
     private JsonNode fetchTestDetails(String session_id) {
-        JsonNode node = EnvSetup.TEST_DETAIL_API_RESPONSE.get();
-        if (node == null || !node.isEmpty()) {
+        return testDetailsCache.get(getTestDetailsCacheKey(session_id), key -> {
             String uri = constructAPIUrl(EnvSetup.API_URL_BASE, TEST_API_ENDPOINT, session_id);
             ltLogger.info("Fetching test details from: {}", uri);
 
-            int maxRetryCount = 5;
-            for (int retryCount = 1; retryCount <= maxRetryCount; retryCount++) {
+            Poller.Result<JsonNode> result = Poller.poll("test_details_api", () -> {
                 try {
-                    node = new ObjectMapper().readTree(
+                    return new ObjectMapper().readTree(
                             getRequestWithBasicAuthAsString(uri, EnvSetup.testUserName.get(), EnvSetup.testAccessKey.get()));
-
-                    // If response is null or empty, retry
-                    if (node == null || node.isEmpty()) {
-                        ltLogger.error("Trial: {} -> Received null or empty response from: {}", retryCount, uri);
-                        throw new RuntimeException("Received null or empty response from: " + uri);
-                    }
-
-                    EnvSetup.TEST_DETAIL_API_RESPONSE.set(node);
-                    break;
-                } catch (Exception e) {
-                    ltLogger.error("Trial: {} -> Failed to fetch test details from: {}. Error: {}", retryCount, uri,
-                            e.getMessage());
-                    waitForTime(10);
-                    if (retryCount == maxRetryCount) {
-                        throw new RuntimeException("Failed to fetch test details from: " + uri, e);
-                    }
+                } catch (JsonProcessingException e) {
+                    throw new RuntimeException(e);
                 }
+            }).until(response -> response != null && !response.isEmpty()).initialDelay(Duration.ofSeconds(1))
+                    .maxDelay(Duration.ofSeconds(10)).timeout(Duration.ofSeconds(50)).run();
+
+            if (!result.isSuccess()) {
+                ltLogger.error("Failed to fetch test details from: {} after {} attempts", uri, result.attempts());
+                throw new RuntimeException("Failed to fetch test details from: " + uri, result.lastException());
             }
-        }
-        return node;
+            return result.value();
+        });
+    }
+
+    private String getTestDetailsCacheKey(String sessionOrTestId) {
+        return EnvSetup.API_URL_BASE + "/" + sessionOrTestId;
+    }
+
+    /// Counts and status in test details change until the session ends, so the response cached during the run is dropped
+    public void invalidateTestDetailsCache(String sessionOrTestId) {
+        testDetailsCache.invalidate(getTestDetailsCacheKey(sessionOrTestId));
     }
 
     public String getOrgIDFromTestId(String test_id) {
@@ -421,17 +467,15 @@ public class AutomationAPIHelper extends ApiManager {
 
     private JsonNode fetchFeatureFlagDetailsOfSpecificSession(String session_id) {
         final String featureFlagKeyInTestDetailsAPI = "feature_flag";
-        if (EnvSetup.TEST_FEATURE_FLAG_DETAILS.get() == null) {
-            JsonNode node = fetchTestDetails(session_id).get(featureFlagKeyInTestDetailsAPI);
-            EnvSetup.TEST_FEATURE_FLAG_DETAILS.set(node);
+        JsonNode node = fetchTestDetails(session_id).get(featureFlagKeyInTestDetailsAPI);
+        if (ltLogger.isDebugEnabled()) {
             try {
-                ltLogger.info("Feature flag: {}", new ObjectMapper().writerWithDefaultPrettyPrinter()
-                        .writeValueAsString(EnvSetup.TEST_FEATURE_FLAG_DETAILS.get()));
+                ltLogger.debug("Feature flag: {}", new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(node));
             } catch (JsonProcessingException e) {
                 ltLogger.warn("Unable to Process Json response. Exception {}", e.getMessage());
             }
         }
-        return EnvSetup.TEST_FEATURE_FLAG_DETAILS.get();
+        return node;
     }
 
     public String getFeatureFlagValueOfSpecificSession(String session_id, String flagName) {
@@ -443,22 +487,16 @@ public class AutomationAPIHelper extends ApiManager {
         return flagStatus;
     }
 
-    public void getCommandCounts(String session_id) {
-        int commandCount;
-        int exceptionCount;
-        int visualCommandCount;
-        if (EnvSetup.SESSION_COMMAND_LOGS_COUNT_FROM_TEST_API.get() == null || EnvSetup.SESSION_EXCEPTION_LOGS_COUNT_FROM_TEST_API.get() == null || EnvSetup.SESSION_VISUAL_LOGS_COUNT_FROM_TEST_API.get() == null) {
-            JsonNode testDetails = fetchTestDetails(session_id);
-            commandCount = testDetails.get("commandCount").asInt(0);
-            exceptionCount = testDetails.get("exceptionCount").asInt(0);
-            visualCommandCount = testDetails.get("visualCommandCount").asInt(0);
-            ltLogger.info(
-                    "Fetched command counts-> All commands count: {}, exception commands count: {}, visual commands count: {}",
-                    commandCount, exceptionCount, visualCommandCount);
-            EnvSetup.SESSION_COMMAND_LOGS_COUNT_FROM_TEST_API.set(commandCount);
-            EnvSetup.SESSION_EXCEPTION_LOGS_COUNT_FROM_TEST_API.set(exceptionCount);
-            EnvSetup.SESSION_VISUAL_LOGS_COUNT_FROM_TEST_API.set(visualCommandCount);
-        }
+    /// Counts are read from the cached test details of the given session, so each session of a scenario gets its own
+    public CommandCounts getCommandCounts(String session_id) {
+        JsonNode testDetails = fetchTestDetails(session_id);
+        CommandCounts commandCounts = new CommandCounts(testDetails.get("commandCount").asInt(0),
+                testDetails.get("exceptionCount").asInt(0), testDetails.get("visualCommandCount").asInt(0));
+        ltLogger.info(
+                "Fetched command counts of session {}-> All commands count: {}, exception commands count: {}, visual commands count: {}",
+                session_id, commandCounts.commandCount(), commandCounts.exceptionCount(),
+                commandCounts.visualCommandCount());
+        return commandCounts;
     }
 
     public Response stopTestViaApi(String session_id) {
@@ -466,6 +504,8 @@ public class AutomationAPIHelper extends ApiManager {
                 EnvSetup.testAccessKey.get(), session_id, sessionApiEndpoints().get("stop"));
         ltLogger.info("Stopping test Via API: {}", uri);
         Response response = putRequest(uri);
+        sessionDetailsCache.invalidate(getSessionDetailsCacheKey(getAPIConfigsBasedOnSessionType(), session_id));
+        invalidateTestDetailsCache(session_id);
         ltLogger.info("Test stop API response: {}", response.body().asString());
         waitForTime(5);
         return response;
@@ -476,6 +516,8 @@ public class AutomationAPIHelper extends ApiManager {
                 EnvSetup.testUserName.get(), EnvSetup.testAccessKey.get(), build_id);
         ltLogger.info("Stopping build Via API: {}", uri);
         Response response = putRequest(uri);
+        // Stopping a build changes the status of all its sessions
+        sessionDetailsCache.invalidateAll();
         ltLogger.info("Build stop API response: {}", response.body().asString());
         waitForTime(5);
         return response;
@@ -3,6 +3,7 @@ package automationHelper;
 import TestManagers.CapabilityManager;
 import TestManagers.DriverManager;
 import TestManagers.TunnelManager;
+import TestManagers.TunnelPool;
 import factory.Locator;
 import factory.LocatorTypes;
 import io.restassured.response.Response;
@@ -15,6 +16,7 @@ import org.openqa.selenium.WebElement;
 import utility.BaseClass;
 import utility.CustomAssert;
 import utility.CustomSoftAssert;
+import utility.Poller;
 
 import java.time.Duration;
 import java.util.*;
@@ -47,6 +49,7 @@ public class AutomationHelper extends BaseClass {
 
         TEST_REPORT.get().put(CLOUD_PLATFORM_NAME, cloudPlatformName);
 
+        stopWatch.start();
         switch (cloudPlatformName) {
             case "saucelab":
                 capabilityManager.buildTestCapabilityForSL(testCapability);
@@ -60,15 +63,38 @@ public class AutomationHelper extends BaseClass {
                 break;
         }
 
+        stopWatch.stop();
+        recordSessionStartupPhase("capability_build", stopWatch.getTime());
+        stopWatch.reset();
+
         ltLogger.info("Test Caps: {}", TEST_CAPS.get().toJson());
         TEST_REPORT.get().put("Caps", TEST_CAPS.get().toJson());
+        if (!TEST_ENV.equals("local"))
+            driverManager.recordGridConnectionPhases();
         stopWatch.start();
         driverManager.createTestDriver();
+        long firstCommandStartTime = stopWatch.getTime();
         driverManager.getCookies();
         stopWatch.stop();
+        recordSessionStartupPhase("first_command", stopWatch.getTime() - firstCommandStartTime);
         TEST_REPORT.get().put(TEST_SETUP_TIME, String.valueOf(stopWatch.getTime() / 1000.00));
     }
 
+    /// Time the session waited on the grid before a machine was allocated, from the session api timestamps
+    private void recordSessionQueueTime(String sessionId) {
+        try {
+            String createTimestamp = apiHelper.getSpecificSessionDetailsViaAPI(sessionId,
+                    sessionDetailsAPIKeys.CREATE_TIMESTAMP).toString();
+            String startTimestamp = apiHelper.getSpecificSessionDetailsViaAPI(sessionId,
+                    sessionDetailsAPIKeys.START_TIMESTAMP).toString();
+            Duration queueTime = getTimeDifference(createTimestamp, startTimestamp, UTC_TimeZone,
+                    SESSION_API_DATE_TIME_FORMAT);
+            recordSessionStartupPhase("queue", Math.max(0, queueTime.toMillis()));
+        } catch (Exception e) {
+            ltLogger.warn("Unable to get queue time of session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
     private boolean checkIfValidTestAction(String actionName) {
         ltLogger.info("Checking if action {} is valid.", actionName);
         boolean runTestAction = false;
@@ -721,10 +747,17 @@ public class AutomationHelper extends BaseClass {
                 ltLogger.warn("Unable to quit test driver: {}", e.getMessage());
             }
             stopWatch.stop();
+            apiHelper.invalidateTestDetailsCache(TEST_SESSION_ID.get());
             String stopTime = getCurrentTimeIST();
             TEST_REPORT.get().put(TEST_STOP_TIME, String.valueOf(stopWatch.getTime() / 1000.00));
             TEST_REPORT.get().put(TEST_END_TIMESTAMP, stopTime);
         }
+        if (!TEST_ENV.equals("local") && cloudPlatforms.LAMBDATEST.name().equalsIgnoreCase(
+                String.valueOf(TEST_REPORT.get().get(CLOUD_PLATFORM_NAME))))
+            recordSessionQueueTime(TEST_SESSION_ID.get());
+        // The queue time lookup caches the details of the running session, they are stale once it is quit
+        if (quitTestDriver)
+            apiHelper.invalidateSessionDetailsCache(TEST_SESSION_ID.get());
         TEST_REPORT.get().put(TEST_START_TIMESTAMP, startTime);
         TEST_REPORT.get().put("test_verification_data", TEST_VERIFICATION_DATA.get());
         ltLogger.info("Test verification data: {}", TEST_VERIFICATION_DATA.get());
@@ -732,28 +765,19 @@ public class AutomationHelper extends BaseClass {
 
     public void startTunnel(String... givenArgs) {
         String args = (givenArgs != null && givenArgs.length > 0) ? givenArgs[0] : "";
-        int maxTunnelStartRetry = 2;
-        while (maxTunnelStartRetry > 0) {
-            tunnelManager = new TunnelManager();
-            tunnelManager.startTunnel(args);
-            boolean tunnelInfoAPIServerStatus = tunnelManager.checkTunnelInfoAPIServerIsInitiated();
-            boolean tunnelCLIStatus;
-            try {
-                tunnelCLIStatus = tunnelManager.getTunnelStatusFromAPIServer();
-            } catch (Exception e) {
-                ltLogger.error("Encountered error while checking Tunnel Status: {}", e.getMessage());
-                tunnelCLIStatus = false;
-            }
-            ltLogger.info("Tunnel info API server status {}, Tunnel CLI status {}", tunnelInfoAPIServerStatus,
-                    tunnelCLIStatus);
-            if (tunnelInfoAPIServerStatus && tunnelCLIStatus)
-                break;
-            maxTunnelStartRetry--;
-        }
+        if (Boolean.TRUE.equals(IS_SHARED_TUNNEL_ENABLED.get()) && TunnelPool.isShareable(args))
+            tunnelManager = TunnelPool.acquire(args, testUserName.get(), testAccessKey.get());
+        else
+            tunnelManager = TunnelManager.startTunnelWithRetries(args, testUserName.get(), testAccessKey.get());
+        tunnelManager.publishTunnelDetails();
     }
 
+    /// A pooled tunnel is returned to the pool instead of stopped
     public void stopTunnel() {
-        tunnelManager.stopTunnel();
+        if (TunnelPool.isLeased(tunnelManager))
+            TunnelPool.release(tunnelManager);
+        else
+            tunnelManager.stopTunnel();
     }
 
     public void uploadSampleTerminalLogs() {
@@ -796,10 +820,6 @@ public class AutomationHelper extends BaseClass {
             return;
         }
 
-        // Wait for logs to be uploaded
-        waitForSomeTimeAfterTestCompletionForLogsToBeUploaded(TEST_REPORT.get().get(TEST_END_TIMESTAMP).toString(),
-                120);
-
         CustomSoftAssert softAssert = SOFT_ASSERT.get();
         Map<String, Object> testCaps = TEST_CAPS_MAP.get();
         String testId = TEST_SESSION_ID.get();
@@ -826,6 +846,10 @@ public class AutomationHelper extends BaseClass {
             return;
         }
 
+        // Wait for logs to be uploaded, bounded by the upload window after test completion
+        artefactsHelper.waitForArtefactToBeReady(logs, testId,
+                getRemainingTimeForLogsToBeUploaded(TEST_REPORT.get().get(TEST_END_TIMESTAMP).toString(), 120));
+
         // Start validating the logs
         verifyLogsByType(logs, testId, softAssert);
 
@@ -902,23 +926,23 @@ public class AutomationHelper extends BaseClass {
     public void verifyTestStatusViaAPI(String expectedStatus, int... customRetryCounts) {
         final String sessionId = TEST_SESSION_ID.get();
         final int maxRetries = customRetryCounts.length > 0 ? customRetryCounts[0] : 2;
-        String currentStatus = "";
 
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            currentStatus = apiHelper.getStatusOfSessionViaAPI(sessionId);
+        final Duration initialDelay = Duration.ofMillis(500);
 
-            if (expectedStatus.equalsIgnoreCase(currentStatus)) {
-                handleSuccessfulSessionStatusMatch(expectedStatus, attempt);
-                return;
-            }
-
-            ltLogger.info("Attempt {}/{}: Status mismatch. Expected: {}, Actual: {}", attempt, maxRetries, expectedStatus,
-                    currentStatus);
+        // The status is always read live from the API, never from the session details cache. The budget is the one
+        // of maxRetries attempts 5 seconds apart, the poller just checks more often within it.
+        Poller.Result<String> result = Poller.poll("verify_test_status_api",
+                        () -> apiHelper.getStatusOfSessionViaAPI(sessionId)).until(expectedStatus::equalsIgnoreCase)
+                .initialDelay(initialDelay).maxDelay(Duration.ofSeconds(5))
+                .timeout(Duration.ofSeconds(5L * maxRetries).plus(initialDelay)).run();
+        String currentStatus = result.value() == null ? "" : result.value();
 
-            if (attempt < maxRetries) {
-                waitForTime(5);
-            }
+        if (result.isSuccess()) {
+            handleSuccessfulSessionStatusMatch(expectedStatus, result.attempts());
+            return;
         }
+        ltLogger.info("Status mismatch after {} attempts. Expected: {}, Actual: {}", result.attempts(), expectedStatus,
+                currentStatus);
 
         CustomAssert.assertTrue(expectedStatus.equalsIgnoreCase(currentStatus),
                 softAssertMessageFormat(TEST_STATUS_MISMATCH_ERROR_MESSAGE, maxRetries, expectedStatus, currentStatus));
@@ -1919,6 +1943,8 @@ public class AutomationHelper extends BaseClass {
         // Quit driver
         try {
             driverManager.quit();
+            apiHelper.invalidateSessionDetailsCache(TEST_SESSION_ID.get());
+            apiHelper.invalidateTestDetailsCache(TEST_SESSION_ID.get());
             ltLogger.info("Driver quit successfully after closing all tabs.");
         } catch (Exception e) {
             softAssert.fail(softAssertMessageFormat(UNABLE_TO_QUIT_DRIVER_ERROR_MESSAGE, e.getMessage()));
@@ -2,9 +2,10 @@ package automationHelper;
 
 import TestManagers.DriverManager;
 import utility.FrameworkConstants;
+import utility.Poller;
 
+import java.time.Duration;
 import java.util.Base64;
-import java.util.concurrent.TimeUnit;
 
 public class LTHooks extends FrameworkConstants {
 
@@ -39,22 +40,11 @@ public class LTHooks extends FrameworkConstants {
 
     public static boolean isFileExist(DriverManager driverManager, String fileNameWithExtension,
                                       int... customRetryCount) {
-        boolean fileFound = false;
         int retryCount = customRetryCount == null || customRetryCount.length == 0 ? 1 : customRetryCount[0];
-        while (retryCount-- > 0 && !fileFound) {
-            fileFound = Boolean.parseBoolean(
-                    driverManager.executeScriptAndFetchValue(String.format("%s=%s", LAMBDA_FILE_EXIST, fileNameWithExtension))
-                            .toString());
-            if (!fileFound && retryCount > 0) {
-                try {
-                    TimeUnit.SECONDS.sleep(5);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Thread was interrupted during sleep", e);
-                }
-            }
-        }
-        return fileFound;
+        return Poller.poll("lambda_file_exist", () -> Boolean.parseBoolean(
+                        driverManager.executeScriptAndFetchValue(String.format("%s=%s", LAMBDA_FILE_EXIST, fileNameWithExtension))
+                                .toString())).until(Boolean::booleanValue).initialDelay(Duration.ofMillis(500))
+                .maxDelay(Duration.ofSeconds(5)).timeout(Duration.ofSeconds(5L * (retryCount - 1))).run().isSuccess();
     }
 
     public static String getFileContent(DriverManager driverManager, String fileNameWithExtension) {
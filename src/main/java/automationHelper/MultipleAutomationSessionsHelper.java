@@ -8,22 +8,31 @@ import utility.BaseClass;
 import utility.EnvSetup;
 import utility.FrameworkConstants;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
 
 import static utility.EnvSetup.*;
-import static utility.FrameworkConstants.TEST_TAGS;
+import static utility.FrameworkConstants.*;
 
 public class MultipleAutomationSessionsHelper extends BaseClass {
     private static final Logger ltLogger = LogManager.getLogger(MultipleAutomationSessionsHelper.class);
     private static final int DEFAULT_CONCURRENCY_LIMIT = 5;
     private static final int SESSION_TIMEOUT_SECONDS = 300;
 
-    /// Tracks success/failure counts and execution time for concurrent sessions
+    /// Create, actions and quit time of one session in seconds, taken from the session's test report
+    private record SessionLatency(double createTime, double actionsTime, double quitTime) {
+    }
+
+    /// Tracks success/failure counts, per session latency and execution time for concurrent sessions
     private static class SessionMetrics {
         private final AtomicInteger successCount = new AtomicInteger(0);
         private final AtomicInteger failureCount = new AtomicInteger(0);
+        private final AtomicInteger timedOutCount = new AtomicInteger(0);
+        private final ConcurrentHashMap<String, SessionLatency> sessionLatencies = new ConcurrentHashMap<>();
         private final long startTime = System.currentTimeMillis();
 
         public void incrementSuccess() {
@@ -34,10 +43,48 @@ public class MultipleAutomationSessionsHelper extends BaseClass {
             failureCount.incrementAndGet();
         }
 
+        public void addTimedOut(int count) {
+            timedOutCount.addAndGet(count);
+        }
+
+        public void recordLatency(String sessionId, Map<String, Object> sessionTestReport) {
+            sessionLatencies.put(sessionId,
+                    new SessionLatency(parseSeconds(sessionTestReport.get(TEST_SETUP_TIME)),
+                            parseSeconds(sessionTestReport.get(TEST_EXECUTION_TIME)),
+                            parseSeconds(sessionTestReport.get(TEST_STOP_TIME))));
+        }
+
+        private static double parseSeconds(Object value) {
+            return value == null ? 0 : Double.parseDouble(value.toString());
+        }
+
         public void logMetrics() {
             long duration = System.currentTimeMillis() - startTime;
-            ltLogger.info("Session execution metrics - Success: {}, Failures: {}, Duration: {}ms", successCount.get(),
-                    failureCount.get(), duration);
+            ltLogger.info("Session execution metrics - Success: {}, Failures: {}, Timed out: {}, Duration: {}ms",
+                    successCount.get(), failureCount.get(), timedOutCount.get(), duration);
+            ltLogger.info("Session latencies in seconds: {}", sessionLatencies);
+
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("success", successCount.get());
+            metrics.put("failure", failureCount.get());
+            metrics.put("timed_out", timedOutCount.get());
+            metrics.put("duration", String.valueOf(duration / 1000.00));
+            metrics.put("create_time", summarize(SessionLatency::createTime));
+            metrics.put("actions_time", summarize(SessionLatency::actionsTime));
+            metrics.put("quit_time", summarize(SessionLatency::quitTime));
+            TEST_REPORT.get().put("multiple_sessions_metrics", metrics);
+        }
+
+        private Map<String, Object> summarize(ToDoubleFunction<SessionLatency> phase) {
+            double[] values = sessionLatencies.values().stream().mapToDouble(phase).sorted().toArray();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            if (values.length == 0)
+                return summary;
+            summary.put("min", values[0]);
+            summary.put("p50", values[(values.length - 1) / 2]);
+            summary.put("p95", values[(int) Math.ceil(values.length * 0.95) - 1]);
+            summary.put("max", values[values.length - 1]);
+            return summary;
         }
     }
 
@@ -49,20 +96,34 @@ public class MultipleAutomationSessionsHelper extends BaseClass {
         int concurrencyLimit = calculateConcurrencyLimit(customConcurrencyLimit);
         SessionMetrics metrics = new SessionMetrics();
 
-        try (ExecutorService executor = Executors.newFixedThreadPool(concurrencyLimit)) {
-            HashMap<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> results = new HashMap<>();
-            Map<String, Map<String, Object>> capsForEachSession = new HashMap<>();
+        // Sessions run on virtual threads, the semaphore keeps at most concurrencyLimit of them active on the grid
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("concurrent-session-", 0).factory());
+        AtomicBoolean isDeadlinePassed = new AtomicBoolean(false);
+        try {
+            Semaphore concurrencyPermits = new Semaphore(concurrencyLimit);
+            ConcurrentHashMap<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> results = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Map<String, Object>> capsForEachSession = new ConcurrentHashMap<>();
             Map<String, Object> mainThreadContext = getThreadLocalSnapshot();
 
-            List<Future<?>> futures = submitSessions(executor, numberOfSessions, quitTestDriver, testCapability, testActions,
-                    results, capsForEachSession, mainThreadContext, metrics);
+            List<CompletableFuture<Void>> futures = submitSessions(executor, concurrencyPermits, isDeadlinePassed,
+                    numberOfSessions, quitTestDriver, testCapability, testActions, results, capsForEachSession,
+                    mainThreadContext, metrics);
 
-            waitForCompletion(futures);
+            // Sessions run in waves of concurrencyLimit, so the overall budget is one session timeout per wave
+            long waves = (numberOfSessions + concurrencyLimit - 1) / concurrencyLimit;
+            waitForCompletion(futures, Duration.ofSeconds(SESSION_TIMEOUT_SECONDS * waves), isDeadlinePassed, metrics);
             processResults(results, capsForEachSession);
             metrics.logMetrics();
         } catch (Exception e) {
             ltLogger.error("Failed to execute concurrent sessions", e);
             throw new RuntimeException("Failed to execute concurrent sessions", e);
+        } finally {
+            // Sessions still running past the deadline are interrupted, their failure path quits the drivers
+            if (isDeadlinePassed.get())
+                executor.shutdownNow();
+            else
+                executor.shutdown();
         }
     }
 
@@ -84,19 +145,35 @@ public class MultipleAutomationSessionsHelper extends BaseClass {
         return customConcurrencyLimit.length > 0 ? Math.max(1, customConcurrencyLimit[0]) : DEFAULT_CONCURRENCY_LIMIT;
     }
 
-    /// Submits individual test sessions to the thread pool for concurrent execution
-    private static List<Future<?>> submitSessions(ExecutorService executor, int numberOfSessions, boolean quitTestDriver,
-                                                  String testCapability, String testActions,
-                                                  Map<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> results,
-                                                  Map<String, Map<String, Object>> capsForEachSession, Map<String, Object> mainThreadContext,
-                                                  SessionMetrics metrics) {
+    /// Submits individual test sessions for concurrent execution
+    private static List<CompletableFuture<Void>> submitSessions(ExecutorService executor, Semaphore concurrencyPermits,
+                                                                AtomicBoolean isDeadlinePassed,
+                                                                int numberOfSessions, boolean quitTestDriver,
+                                                                String testCapability, String testActions,
+                                                                Map<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> results,
+                                                                Map<String, Map<String, Object>> capsForEachSession,
+                                                                Map<String, Object> mainThreadContext, SessionMetrics metrics) {
 
-        List<Future<?>> futures = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
         for (int i = 0; i < numberOfSessions; i++) {
             String finalTestCapability = addSpecificSessionIdentifierInCaps(testCapability, i);
-            futures.add(executor.submit(
-                    () -> runSession(quitTestDriver, finalTestCapability, testActions, results, capsForEachSession,
-                            mainThreadContext, metrics)));
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    concurrencyPermits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    // Sessions which didn't get a permit before the deadline are not started anymore
+                    if (isDeadlinePassed.get())
+                        return;
+                    runSession(quitTestDriver, finalTestCapability, testActions, isDeadlinePassed, results,
+                            capsForEachSession, mainThreadContext, metrics);
+                } finally {
+                    concurrencyPermits.release();
+                }
+            }, executor));
         }
         return futures;
     }
@@ -121,7 +198,7 @@ public class MultipleAutomationSessionsHelper extends BaseClass {
 
     /// Executes a single test session with the specified capabilities and actions
     private static void runSession(boolean quitTestDriver, String testCapability, String testActions,
-                                   Map<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> results,
+                                   AtomicBoolean isDeadlinePassed, Map<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> results,
                                    Map<String, Map<String, Object>> capsForEachSession, Map<String, Object> mainThreadContext,
                                    SessionMetrics metrics) {
 
@@ -131,34 +208,63 @@ public class MultipleAutomationSessionsHelper extends BaseClass {
         try {
             automationHelper.startSessionWithSpecificCapabilities(quitTestDriver, testCapability, testActions, true);
             String sessionId = EnvSetup.TEST_SESSION_ID.get();
-            if (sessionId != null) {
+            // Results of sessions finishing after the deadline are not part of the published batch
+            if (sessionId != null && !isDeadlinePassed.get()) {
                 results.put(sessionId, new HashMap<>(EnvSetup.TEST_VERIFICATION_DATA.get()));
                 capsForEachSession.put(sessionId, new HashMap<>(EnvSetup.TEST_CAPS_MAP.get()));
+                metrics.recordLatency(sessionId, EnvSetup.TEST_REPORT.get());
                 metrics.incrementSuccess();
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
+            // Assertion errors included, so one failed session never fails the whole batch
             metrics.incrementFailure();
             ltLogger.error("Failed to execute session", e);
+            quitFailedSession(automationHelper);
         }
     }
 
-    /// Waits for all submitted sessions to complete with timeout
-    private static void waitForCompletion(List<Future<?>> futures) {
-        futures.forEach(f -> {
-            try {
-                f.get(SESSION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                ltLogger.error("Session execution timed out", e);
-            } catch (Exception e) {
-                ltLogger.error("Session execution failed", e);
-            }
-        });
+    /// Quits the driver of a session which failed before its quit step, so the remote session doesn't stay open until
+    /// the grid idle timeout. Done whether the batch quits its drivers or not, as nothing uses a failed session later
+    private static void quitFailedSession(AutomationHelper automationHelper) {
+        // Sessions interrupted at the deadline still have to send the quit request
+        boolean isInterrupted = Thread.interrupted();
+        try {
+            automationHelper.driverManager.quit();
+        } catch (Exception e) {
+            ltLogger.warn("Unable to quit driver of failed session: {}", e.getMessage());
+        } finally {
+            if (isInterrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /// Waits for all submitted sessions to complete within one overall deadline
+    private static void waitForCompletion(List<CompletableFuture<Void>> futures, Duration timeout,
+                                          AtomicBoolean isDeadlinePassed, SessionMetrics metrics) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                    .get(timeout.toSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            isDeadlinePassed.set(true);
+            int pendingSessions = (int) futures.stream().filter(future -> !future.isDone()).count();
+            metrics.addTimedOut(pendingSessions);
+            futures.forEach(future -> future.cancel(true));
+            ltLogger.error("{} sessions did not complete within {} seconds", pendingSessions, timeout.toSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for sessions to complete", e);
+        } catch (ExecutionException e) {
+            ltLogger.error("Session execution failed", e);
+        }
     }
 
     /// Processes and stores the results from all completed sessions
     private static void processResults(
-            HashMap<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> results,
-            Map<String, Map<String, Object>> capsForEachSession) {
+            Map<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> sessionResults,
+            Map<String, Map<String, Object>> sessionCaps) {
+        // Copies taken so sessions still running past the deadline don't change the published results
+        HashMap<String, HashMap<FrameworkConstants.testVerificationDataKeys, Object>> results = new HashMap<>(sessionResults);
+        Map<String, Map<String, Object>> capsForEachSession = new HashMap<>(sessionCaps);
         try {
             ObjectMapper objectMapper = new ObjectMapper();
             objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
@@ -5,22 +5,28 @@ import DTOs.SwaggerAPIs.ArtefactsApiV2ResponseDTO;
 import DTOs.SwaggerAPIs.FetchVideoAPIResponseDTO;
 import DTOs.SwaggerAPIs.LighthouseReportDTO;
 import TestManagers.ApiManager;
+import TestManagers.BrowserEventCapture;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
 import com.mysql.cj.util.StringUtils;
 import lombok.Getter;
 import lombok.SneakyThrows;
+import org.apache.commons.lang3.time.StopWatch;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.testng.Assert;
 import utility.CustomSoftAssert;
 import utility.EnvSetup;
+import utility.Poller;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -57,6 +63,8 @@ public class TestArtefactsVerificationHelper extends ApiManager {
     private static final String seleniumThreeExpectedLogLine = "Selenium build info: version: '";
     private static final String seleniumFourExpectedLogLine = "Started Selenium Standalone ";
 
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
     private final AutomationAPIHelper automationAPIHelper = new AutomationAPIHelper();
 
     private String getFileName(String sessionID, String sessionDetail) {
@@ -85,44 +93,126 @@ public class TestArtefactsVerificationHelper extends ApiManager {
         return uri;
     }
 
+    /// Logs fetched from one artefact API version. Soft assertions write to scenario thread locals, so fetch failures
+    /// are carried back here and asserted on the scenario thread.
+    private record FetchedLogs(String logs, String apiV2UrlErrorMessage, boolean isDownloadFailed,
+                               long fetchTimeInMillis) {
+    }
+
     private String fetchLogs(String logType, ArtefactAPIVersions apiVersion, String sessionId) {
-        CustomSoftAssert softAssert = EnvSetup.SOFT_ASSERT.get();
+        return assertFetchedLogs(fetchLogsWithoutAssertions(logType, apiVersion, sessionId));
+    }
+
+    /// Fetches logs of both artefact API versions concurrently and adds the fetch time of each version to the test report
+    private Map<ArtefactAPIVersions, String> fetchLogsFromAllApiVersions(String logType, String sessionId) {
+        Map<ArtefactAPIVersions, CompletableFuture<FetchedLogs>> pendingLogs = new EnumMap<>(ArtefactAPIVersions.class);
+        for (ArtefactAPIVersions artefactAPIVersion : ArtefactAPIVersions.values()) {
+            pendingLogs.put(artefactAPIVersion,
+                    supplyAsync(() -> fetchLogsWithoutAssertions(logType, artefactAPIVersion, sessionId)));
+        }
+
+        Map<ArtefactAPIVersions, String> logs = new EnumMap<>(ArtefactAPIVersions.class);
+        pendingLogs.forEach((artefactAPIVersion, pendingLog) -> {
+            FetchedLogs fetchedLogs;
+            try {
+                fetchedLogs = pendingLog.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException ?
+                        runtimeException :
+                        new RuntimeException("Unable to fetch " + logType + " logs", e.getCause());
+            }
+            String fetchTime = String.valueOf(fetchedLogs.fetchTimeInMillis() / 1000.00);
+            ltLogger.info("Fetched {} logs via {} in {} seconds", logType, artefactAPIVersion, fetchTime);
+            TEST_REPORT.get().put(logType + "_logs_fetch_time_" + artefactAPIVersion.toString().toLowerCase(), fetchTime);
+            logs.put(artefactAPIVersion, assertFetchedLogs(fetchedLogs));
+        });
+        return logs;
+    }
+
+    private FetchedLogs fetchLogsWithoutAssertions(String logType, ArtefactAPIVersions apiVersion, String sessionId) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
         String apiUrl = constructArtefactsAPIUrl(logType, apiVersion, sessionId);
         String response = getRequestAsString(apiUrl);
+        String apiV2UrlErrorMessage = null;
+        boolean isDownloadFailed = false;
 
         if (apiVersion.equals(ArtefactAPIVersions.API_V2)) {
-            response = handleApiV2Response(response, sessionId, logType, softAssert);
+            ltLogger.info("Fetched artefacts API URL response via API V2: {}", response);
+            ArtefactsApiV2ResponseDTO artefactsApiV2ResponseDTO = convertJsonStringToPojo(response,
+                    new TypeToken<ArtefactsApiV2ResponseDTO>() {
+                    });
+            String message = artefactsApiV2ResponseDTO.getMessage();
+            if (isApiV2DownloadSuccessful(artefactsApiV2ResponseDTO.getStatus(), message)) {
+                response = downloadFileAndExtractContent(artefactsApiV2ResponseDTO.getUrl(),
+                        getFileName(sessionId, logType), TEST_LOGS_DOWNLOAD_DIRECTORY);
+                isDownloadFailed = response == null;
+            } else {
+                response = null;
+                apiV2UrlErrorMessage = message;
+            }
             ltLogger.info("Fetched {} artefacts API URL response via API V2: {}", logType, response);
         } else {
             response = handleUnicodeEscapes(response);
             ltLogger.info("Fetched {} artefacts API URL response via API V1: {}", logType, response);
         }
 
-        EnvSetup.SOFT_ASSERT.set(softAssert);
-        return response;
+        stopWatch.stop();
+        return new FetchedLogs(response, apiV2UrlErrorMessage, isDownloadFailed, stopWatch.getTime());
     }
 
-    private String handleApiV2Response(String response, String sessionId, String logType, CustomSoftAssert softAssert) {
-        ltLogger.info("Fetched artefacts API URL response via API V2: {}", response);
-
-        ArtefactsApiV2ResponseDTO artefactsApiV2ResponseDTO = convertJsonStringToPojo(response,
-                new TypeToken<ArtefactsApiV2ResponseDTO>() {
-                });
-
-        String status = artefactsApiV2ResponseDTO.getStatus();
-        String message = artefactsApiV2ResponseDTO.getMessage();
-
-        boolean isDownloadSuccess = isApiV2DownloadSuccessful(status, message);
-        softAssert.assertTrue(isDownloadSuccess,
-                softAssertMessageFormat(UNABLE_TO_GET_LOGS_DOWNLOAD_URL_FROM_API_V2_ERROR_MESSAGE, message));
-
-        if (isDownloadSuccess) {
-            String logsDownloadUrl = artefactsApiV2ResponseDTO.getUrl();
-            return downloadFileFromUrlAndExtractContentAsString(logsDownloadUrl, getFileName(sessionId, logType),
-                    TEST_LOGS_DOWNLOAD_DIRECTORY);
-        } else {
-            return null;
+    private String assertFetchedLogs(FetchedLogs fetchedLogs) {
+        CustomSoftAssert softAssert = EnvSetup.SOFT_ASSERT.get();
+        if (fetchedLogs.apiV2UrlErrorMessage() != null) {
+            softAssert.fail(softAssertMessageFormat(UNABLE_TO_GET_LOGS_DOWNLOAD_URL_FROM_API_V2_ERROR_MESSAGE,
+                    fetchedLogs.apiV2UrlErrorMessage()));
+        }
+        if (fetchedLogs.isDownloadFailed()) {
+            softAssert.fail("File not downloaded");
         }
+        EnvSetup.SOFT_ASSERT.set(softAssert);
+        return fetchedLogs.logs();
+    }
+
+    /// Polls the cheap status endpoint of an artefact until it reports the artefact is available or the budget runs out.
+    /// Returns false if it never became ready, the verification that follows reports the actual failure.
+    public boolean waitForArtefactToBeReady(String artefactName, String sessionId, Duration timeout) {
+        Supplier<Boolean> readinessProbe = switch (artefactName) {
+            case VIDEO -> () -> {
+                FetchVideoAPIResponseDTO videoAPIResponseDTO = convertJsonStringToPojo(
+                        getRequestAsString(constructArtefactsAPIUrl(VIDEO, ArtefactAPIVersions.API_V1, sessionId)),
+                        new TypeToken<FetchVideoAPIResponseDTO>() {
+                        });
+                return "success".equals(videoAPIResponseDTO.getStatus());
+            };
+            case "performance report" -> () -> {
+                LighthouseReportDTO lighthouseReportDTO = convertJsonStringToPojo(getRequestAsString(
+                        constructAPIUrlWithBasicAuth(EnvSetup.API_URL_BASE, SESSION_LIGHTHOUSE_REPORT_ENDPOINT,
+                                EnvSetup.testUserName.get(), EnvSetup.testAccessKey.get(), sessionId)),
+                        new TypeToken<LighthouseReportDTO>() {
+                        });
+                return "success".equalsIgnoreCase(lighthouseReportDTO.getStatus());
+            };
+            default -> () -> {
+                // API v2 only hands out a download url once the log file has been uploaded
+                String logType = artefactName.equals("full.har") ? LogType.FULL_HAR.value : artefactName;
+                ArtefactsApiV2ResponseDTO artefactsApiV2ResponseDTO = convertJsonStringToPojo(
+                        getRequestAsString(constructArtefactsAPIUrl(logType, ArtefactAPIVersions.API_V2, sessionId)),
+                        new TypeToken<ArtefactsApiV2ResponseDTO>() {
+                        });
+                return isApiV2DownloadSuccessful(artefactsApiV2ResponseDTO.getStatus(),
+                        artefactsApiV2ResponseDTO.getMessage());
+            };
+        };
+
+        String artefactKey = artefactName.replace(" ", "_").replace(".", "_");
+        Poller.Result<Boolean> result = Poller.poll("artefact_readiness_" + artefactKey, readinessProbe)
+                .until(Boolean::booleanValue).initialDelay(Duration.ofSeconds(1)).maxDelay(Duration.ofSeconds(10))
+                .timeout(timeout).run();
+        String waitTime = String.valueOf(result.waitedMillis() / 1000.00);
+        ltLogger.info("{} artefact ready: {} after waiting for {} seconds", artefactName, result.isSuccess(), waitTime);
+        TEST_REPORT.get().put(artefactKey + "_artefact_readiness_wait_time", waitTime);
+        return result.isSuccess();
     }
 
     private boolean isApiV2DownloadSuccessful(String status, String message) {
@@ -351,9 +441,8 @@ public class TestArtefactsVerificationHelper extends ApiManager {
         boolean isWebDriverEnabled = logsType.equalsIgnoreCase("webdriver");
         Map<String, Object> testCaps = EnvSetup.TEST_CAPS_MAP.get();
         String browserName = testCaps.get(BROWSER_NAME).toString();
-        for (ArtefactAPIVersions artefactAPIVersion : ArtefactAPIVersions.values()) {
+        fetchLogsFromAllApiVersions(logsType, session_id).forEach((artefactAPIVersion, logs) -> {
             String version = artefactAPIVersion.equals(ArtefactAPIVersions.API_V1) ? "v1" : "v2";
-            String logs = fetchLogs(logsType, artefactAPIVersion, session_id);
             ltLogger.info("Selenium Logs from API {}: {}", version, logs);
             verifyPortNumber(session_id, logs, isWebDriverEnabled, browserName);
             if (isWebDriverEnabled) {
@@ -361,19 +450,19 @@ public class TestArtefactsVerificationHelper extends ApiManager {
             } else {
                 verifySeleniumLogs(session_id, logs, testCaps);
             }
-        }
+        });
     }
 
     @SneakyThrows
-    private Queue<String> extractUrlsAPIResponse(JsonArray response) {
+    private Queue<String> extractUrlsAPIResponse(JsonNode response) {
         Queue<String> urlsAPIResponse = new LinkedList<>();
-        for (JsonElement element : response) {
-            String requestPath = element.getAsJsonObject().get("Value").getAsJsonObject().get("requestPath").getAsString();
-            String method = element.getAsJsonObject().get("Value").getAsJsonObject().get("requestMethod").getAsString();
+        for (JsonNode element : response) {
+            String requestPath = element.get("Value").get("requestPath").asText();
+            String method = element.get("Value").get("requestMethod").asText();
             if (method.equals("POST") && requestPath.endsWith("/url")) {
-                String requestBody = element.getAsJsonObject().get("Value").getAsJsonObject().get("requestBody").getAsString();
+                String requestBody = element.get("Value").get("requestBody").asText();
                 ltLogger.info("Request body: {}", requestBody);
-                JsonNode jsonNode = new ObjectMapper().readTree(requestBody);
+                JsonNode jsonNode = objectMapper.readTree(requestBody);
                 urlsAPIResponse.add(jsonNode.get("url").asText());
             }
         }
@@ -400,15 +489,9 @@ public class TestArtefactsVerificationHelper extends ApiManager {
     }
 
     public void verifyCommandLogs(String session_id) {
-        if (EnvSetup.SESSION_COMMAND_LOGS_COUNT_FROM_TEST_API.get() == null) {
-            automationAPIHelper.getCommandCounts(session_id);
-        }
-        int expectedCommandLogsCount = EnvSetup.SESSION_COMMAND_LOGS_COUNT_FROM_TEST_API.get();
+        int expectedCommandLogsCount = automationAPIHelper.getCommandCounts(session_id).commandCount();
         this.verifyCommandLogsPagesListAndTimeStamps(session_id, expectedCommandLogsCount);
-        this.verifyDifferentCommandLogs(session_id, ArtefactAPIVersions.API_V1, COMMAND_LOGS_API_V1_SCHEMA,
-                expectedCommandLogsCount, LogType.COMMAND);
-        this.verifyDifferentCommandLogs(session_id, ArtefactAPIVersions.API_V2, COMMAND_LOGS_API_V2_SCHEMA,
-                expectedCommandLogsCount, LogType.COMMAND);
+        this.verifyDifferentCommandLogs(session_id, expectedCommandLogsCount, LogType.COMMAND);
     }
 
     private void verifyCommandLogsPagesListAndTimeStamps(String session_id, int expectedCommandLogsCount,
@@ -464,20 +547,20 @@ public class TestArtefactsVerificationHelper extends ApiManager {
     }
 
     public void exceptionCommandLogs(String session_id) {
-        if (EnvSetup.SESSION_EXCEPTION_LOGS_COUNT_FROM_TEST_API.get() == null) {
-            automationAPIHelper.getCommandCounts(session_id);
-        }
-        int expectedExceptionCommandLogsCount = EnvSetup.SESSION_EXCEPTION_LOGS_COUNT_FROM_TEST_API.get();
-        this.verifyDifferentCommandLogs(session_id, ArtefactAPIVersions.API_V1, COMMAND_LOGS_API_V1_SCHEMA,
-                expectedExceptionCommandLogsCount, LogType.EXCEPTION);
-        this.verifyDifferentCommandLogs(session_id, ArtefactAPIVersions.API_V2, COMMAND_LOGS_API_V2_SCHEMA,
-                expectedExceptionCommandLogsCount, LogType.EXCEPTION);
+        int expectedExceptionCommandLogsCount = automationAPIHelper.getCommandCounts(session_id).exceptionCount();
+        this.verifyDifferentCommandLogs(session_id, expectedExceptionCommandLogsCount, LogType.EXCEPTION);
+    }
+
+    private void verifyDifferentCommandLogs(String session_id, int expectedCommandLogsCount, LogType logType) {
+        fetchLogsFromAllApiVersions(logType.value, session_id).forEach(
+                (apiVersion, logsFromApi) -> verifyDifferentCommandLogs(apiVersion,
+                        apiVersion == ArtefactAPIVersions.API_V1 ? COMMAND_LOGS_API_V1_SCHEMA : COMMAND_LOGS_API_V2_SCHEMA,
+                        expectedCommandLogsCount, logType, logsFromApi));
     }
 
-    private void verifyDifferentCommandLogs(String session_id, ArtefactAPIVersions apiVersion, String schemaFilePath,
-                                            int expectedCommandLogsCount, LogType logType) {
+    private void verifyDifferentCommandLogs(ArtefactAPIVersions apiVersion, String schemaFilePath,
+                                            int expectedCommandLogsCount, LogType logType, String logsFromApi) {
         CustomSoftAssert softAssert = EnvSetup.SOFT_ASSERT.get();
-        String logsFromApi = fetchLogs(logType.value, apiVersion, session_id);
 
         // Handle null response
         if (logsFromApi == null || logsFromApi.isEmpty()) {
@@ -487,17 +570,21 @@ public class TestArtefactsVerificationHelper extends ApiManager {
             return;
         }
 
+        // Parse logs JSON once, the same tree is used for schema validation and the verifications below
+        JsonNode logsJson;
+        try {
+            logsJson = objectMapper.readTree(logsFromApi);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unable to parse " + logType.value + " logs from API " + apiVersion, e);
+        }
+
         // Validate schema
-        Set<String> schemaValidationErrors = validateSchema(logsFromApi, schemaFilePath);
+        Set<String> schemaValidationErrors = validateSchema(logsJson, schemaFilePath);
         softAssert.assertTrue(schemaValidationErrors.isEmpty(),
                 softAssertMessageFormat(SCHEMA_VALIDATION_FAILURE_FOR_LOGS_API_RESPONSE_ERROR_MESSAGE, logType.value,
                         apiVersion.toString(), schemaValidationErrors));
 
-        // Parse logs JSON
-        JsonElement logsJson = constructJsonFromString(logsFromApi);
-        JsonArray commandsArray = apiVersion == ArtefactAPIVersions.API_V1 ?
-                logsJson.getAsJsonObject().get("data").getAsJsonArray() :
-                logsJson.getAsJsonArray();
+        JsonNode commandsArray = apiVersion == ArtefactAPIVersions.API_V1 ? logsJson.get("data") : logsJson;
 
         // Verify logs count
         softAssert.assertTrue(commandsArray.size() == expectedCommandLogsCount,
@@ -533,16 +620,22 @@ public class TestArtefactsVerificationHelper extends ApiManager {
             return;
         }
 
-        for (ArtefactAPIVersions artefactAPIVersion : ArtefactAPIVersions.values()) {
+        fetchLogsFromAllApiVersions(LogType.CONSOLE.value, session_id).forEach((artefactAPIVersion, logs) -> {
             String version = artefactAPIVersion.equals(ArtefactAPIVersions.API_V1) ? "v1" : "v2";
-            String logs = fetchLogs(LogType.CONSOLE.value, artefactAPIVersion, session_id);
-
             for (String expectedConsoleLog : expectedConsoleLogs) {
                 ltLogger.info("Checking console log {}", expectedConsoleLog);
                 softAssert.assertTrue(logs.contains(expectedConsoleLog),
                         softAssertMessageFormat(EXPECTED_CONSOLE_LOGS_ARE_NOT_AVAILABLE_ERROR_MESSAGE, expectedConsoleLog, version));
             }
-        }
+            for (BrowserEventCapture.ConsoleEvent capturedConsoleEvent : getCapturedConsoleEvents()) {
+                // Events without text, e.g. a console call with only objects, have nothing to look for in the logs
+                if (StringUtils.isNullOrEmpty(capturedConsoleEvent.text()))
+                    continue;
+                softAssert.assertTrue(logs.contains(capturedConsoleEvent.text()),
+                        softAssertMessageFormat(CAPTURED_CONSOLE_LOG_IS_NOT_PRESENT_ERROR_MESSAGE,
+                                capturedConsoleEvent.text(), version));
+            }
+        });
 
         EnvSetup.SOFT_ASSERT.set(softAssert);
     }
@@ -554,32 +647,90 @@ public class TestArtefactsVerificationHelper extends ApiManager {
         softAssert.assertFalse(StringUtils.isNullOrEmpty(expectedData),
                 softAssertMessageFormat(TERMINAL_LOGS_NOT_UPLOADED_ERROR_MESSAGE));
         if (!StringUtils.isNullOrEmpty(expectedData)) {
-            for (ArtefactAPIVersions artefactAPIVersion : ArtefactAPIVersions.values()) {
+            fetchLogsFromAllApiVersions(LogType.TERMINAL.value, session_id).forEach((artefactAPIVersion, logs) -> {
                 String version = artefactAPIVersion.equals(ArtefactAPIVersions.API_V1) ? "v1" : "v2";
-                String logs = fetchLogs(LogType.TERMINAL.value, artefactAPIVersion, session_id);
                 softAssert.assertTrue(logs.contains(expectedData),
                         softAssertMessageFormat(TERMINAL_LOGS_DATA_MISMATCH_ERROR_MESSAGE, version));
-            }
+            });
         }
         EnvSetup.SOFT_ASSERT.set(softAssert);
     }
 
     public void verifyNetworkLogs(String session_id) {
-        for (ArtefactAPIVersions artefactAPIVersion : ArtefactAPIVersions.values()) {
-            String logs = fetchLogs(LogType.NETWORK.value, artefactAPIVersion, session_id);
+        fetchLogsFromAllApiVersions(LogType.NETWORK.value, session_id).values().forEach(logs -> {
             checkForSpecificTestVerificationDataPresentInLogs(logs, "network",
                     new testVerificationDataKeys[]{testVerificationDataKeys.URL});
-        }
+            verifyCapturedNavigationsArePresentInNetworkLogs(logs, "network", false);
+        });
     }
 
     public void verifyNetworkFullHarLogs(String session_id) {
-        for (ArtefactAPIVersions artefactAPIVersion : ArtefactAPIVersions.values()) {
-            String logs = fetchLogs(LogType.FULL_HAR.value, artefactAPIVersion, session_id);
+        fetchLogsFromAllApiVersions(LogType.FULL_HAR.value, session_id).values().forEach(logs -> {
             checkForSpecificTestVerificationDataPresentInLogs(logs, "network full.har",
                     new testVerificationDataKeys[]{testVerificationDataKeys.URL});
+            verifyCapturedNavigationsArePresentInNetworkLogs(logs, "network full.har", true);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BrowserEventCapture.NetworkEvent> getCapturedNavigationEvents() {
+        return (List<BrowserEventCapture.NetworkEvent>) TEST_VERIFICATION_DATA.get()
+                .getOrDefault(testVerificationDataKeys.CAPTURED_NAVIGATION_EVENTS, Collections.emptyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BrowserEventCapture.ConsoleEvent> getCapturedConsoleEvents() {
+        return (List<BrowserEventCapture.ConsoleEvent>) TEST_VERIFICATION_DATA.get()
+                .getOrDefault(testVerificationDataKeys.CAPTURED_CONSOLE_EVENTS, Collections.emptyList());
+    }
+
+    private record HarSummary(int entriesCount, Map<String, Set<Integer>> statusCodesByUrl) {
+    }
+
+    private HarSummary getHarSummary(String harLogs) {
+        try {
+            JsonNode entries = objectMapper.readTree(harLogs).path("log").path("entries");
+            Map<String, Set<Integer>> statusCodesByUrl = new HashMap<>();
+            entries.forEach(entry -> statusCodesByUrl.computeIfAbsent(entry.path("request").path("url").asText(),
+                    url -> new HashSet<>()).add(entry.path("response").path("status").asInt()));
+            return new HarSummary(entries.size(), statusCodesByUrl);
+        } catch (JsonProcessingException e) {
+            ltLogger.warn("Unable to parse HAR logs, status codes won't be compared: {}", e.getMessage());
+            return null;
         }
     }
 
+    /// Navigations captured in the browser over BiDi, when `BROWSER_EVENT_CAPTURE` is enabled, are looked up in the
+    /// uploaded logs. HAR logs are parsed, so entry count and status codes are compared as well.
+    private void verifyCapturedNavigationsArePresentInNetworkLogs(String logs, String logsType, boolean isHarLogs) {
+        List<BrowserEventCapture.NetworkEvent> capturedNavigations = getCapturedNavigationEvents().stream()
+                .filter(event -> event.status() > 0 && event.url().startsWith("http")).toList();
+        if (capturedNavigations.isEmpty() || logs == null || logs.isEmpty())
+            return;
+        ltLogger.info("Checking {} navigations captured in the browser in the {} logs", capturedNavigations.size(),
+                logsType);
+        CustomSoftAssert softAssert = EnvSetup.SOFT_ASSERT.get();
+        HarSummary harSummary = isHarLogs ? getHarSummary(logs) : null;
+        if (harSummary != null) {
+            softAssert.assertTrue(harSummary.entriesCount() >= capturedNavigations.size(),
+                    softAssertMessageFormat(CAPTURED_NAVIGATIONS_COUNT_MISMATCH_ERROR_MESSAGE, logsType,
+                            capturedNavigations.size(), harSummary.entriesCount()));
+        }
+        capturedNavigations.forEach(navigation -> {
+            String url = removeBasicAuthHeadersFromUrl(navigation.url());
+            boolean isPresent = logs.contains(url);
+            softAssert.assertTrue(isPresent,
+                    softAssertMessageFormat(CAPTURED_NAVIGATION_IS_NOT_PRESENT_IN_LOGS_ERROR_MESSAGE, url, logsType));
+            Set<Integer> statusCodes = harSummary == null ? null : harSummary.statusCodesByUrl().get(url);
+            if (isPresent && statusCodes != null) {
+                softAssert.assertTrue(statusCodes.contains(navigation.status()),
+                        softAssertMessageFormat(CAPTURED_NAVIGATION_STATUS_MISMATCH_ERROR_MESSAGE, url, logsType,
+                                navigation.status(), statusCodes));
+            }
+        });
+        EnvSetup.SOFT_ASSERT.set(softAssert);
+    }
+
     private String[] extractVideoUrlsFromAPIResponse(String session_id, CustomSoftAssert softAssert) {
         String videoAPIResponse = fetchLogs(VIDEO, ArtefactAPIVersions.API_V1, session_id);
         FetchVideoAPIResponseDTO fetchVideoAPIResponseDTO = convertJsonStringToPojo(videoAPIResponse,
@@ -647,7 +798,10 @@ public class TestArtefactsVerificationHelper extends ApiManager {
                 240 :
                 60; // Buffer time in seconds, more time incase it is idle timeout
         double testExecutionTimeInSeconds = Double.parseDouble((String) TEST_REPORT.get().get(TEST_EXECUTION_TIME));
-        double expectedVideoDurationLimit = testExecutionTimeInSeconds + bufferTime;
+        // A warm session's video also covers the time it waited in the pool
+        double warmSessionPreLeaseTimeInSeconds = Double.parseDouble(
+                (String) TEST_REPORT.get().getOrDefault(WARM_SESSION_PRE_LEASE_TIME, "0"));
+        double expectedVideoDurationLimit = testExecutionTimeInSeconds + warmSessionPreLeaseTimeInSeconds + bufferTime;
 
         double actualVideoDuration = Double.parseDouble(
                 videoMetaData.get(videoMetadataTypes.DURATION_IN_SECONDS.getValue()).toString());
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import TestManagers.CapabilityManager;
+
+import java.util.Arrays;
+
+/// Measures the per scenario cost of CapabilityManager.buildTestCapability when the capability string was already
+/// parsed by an earlier scenario, against a capability string seen for the first time.
+/// Run with: mvn compile exec:java -Dexec.mainClass="benchmarks.CapabilityTemplateBenchmark" -Dexec.args="2000"
+public class CapabilityTemplateBenchmark {
+    private static final String CAPABILITY_STRING = "browserName=chrome,platform=win10,version=.*,resolution=1920x1080,name=Benchmark_randomName$,tags=[benchmark_randomName$,capabilities],network=true,console=true,visual=true,chromeOptions={args=[--start-maximized,--disable-popup-blocking]}";
+    private static final int WARMUP_ITERATIONS = 500;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        // EnvSetup reads the env on class load, local env keeps the benchmark away from the grid config
+        if (System.getProperty("ENV") == null)
+            System.setProperty("ENV", "local");
+
+        CapabilityManager capabilityManager = new CapabilityManager();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            capabilityManager.buildTestCapability(CAPABILITY_STRING);
+            capabilityManager.buildTestCapability(CAPABILITY_STRING + ",warmupIteration=" + i);
+        }
+
+        long[] cachedTimings = new long[iterations];
+        long[] uncachedTimings = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            capabilityManager.buildTestCapability(CAPABILITY_STRING);
+            cachedTimings[i] = System.nanoTime() - start;
+
+            // A capability string which differs in every iteration is parsed from scratch
+            String uncachedCapabilityString = CAPABILITY_STRING + ",benchmarkIteration=" + i;
+            start = System.nanoTime();
+            capabilityManager.buildTestCapability(uncachedCapabilityString);
+            uncachedTimings[i] = System.nanoTime() - start;
+        }
+
+        System.out.printf("Iterations: %d, template cache: %s%n", iterations,
+                CapabilityManager.getCapabilityTemplateCacheMetrics());
+        printTimings("Parsed template", cachedTimings);
+        printTimings("New capability string", uncachedTimings);
+    }
+
+    private static void printTimings(String label, long[] timings) {
+        Arrays.sort(timings);
+        System.out.printf("%s per scenario min: %.1f us, median: %.1f us, p99: %.1f us, max: %.1f us%n", label,
+                timings[0] / 1000.0, timings[timings.length / 2] / 1000.0,
+                timings[(int) (timings.length * 0.99)] / 1000.0, timings[timings.length - 1] / 1000.0);
+    }
+}
@@ -0,0 +1,207 @@
+package benchmarks;
+
+import TestManagers.TunnelManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static utility.FrameworkConstants.*;
+
+/// Measures what the tunnel binary costs on the data path. An embedded origin server serves a fixed size payload and
+/// concurrent requests are sent to it through the local proxy port of the tunnel, once per tunnel mode and
+/// `maxDataConnections` value. Latency percentiles and throughput are printed per combination.
+/// With `standIn` no tunnel is started, an in process forwarding proxy takes its place, so the harness itself can be
+/// checked without network access or credentials.
+/// Run with: mvn compile exec:java -Dexec.mainClass="benchmarks.TunnelBenchmark" -Dexec.args="500 16 256 1,4"
+/// -DCUSTOM_USER_NAME=... -DCUSTOM_USER_KEY=..., or -Dexec.args="500 16 256 1,4 standIn" for the stand-in proxy.
+public class TunnelBenchmark {
+    private static final String PAYLOAD_PATH = "/payload";
+    private static final int WARMUP_REQUESTS = 100;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private record RunResult(int requests, int failures, long[] latencyNanos, long totalBytes, long wallNanos) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int payloadKb = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int[] maxDataConnectionsValues = Arrays.stream((args.length > 3 ? args[3] : "1,4").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        boolean useStandIn = args.length > 4 && args[4].equalsIgnoreCase("standIn");
+        // EnvSetup reads the env on class load, the tunnel binary is started for prod unless told otherwise
+        if (System.getProperty(ENV) == null)
+            System.setProperty(ENV, "prod");
+
+        HttpServer origin = startOrigin(payloadKb * 1024);
+        HttpServer standInProxy = useStandIn ? startStandInProxy() : null;
+        try {
+            String payloadUrl = "http://127.0.0.1:" + origin.getAddress().getPort() + PAYLOAD_PATH;
+            System.out.printf("Requests: %d, concurrency: %d, payload: %d KB, stand-in: %s%n", requests, concurrency,
+                    payloadKb, useStandIn);
+            System.out.printf("%-6s %-18s %9s %9s %9s %9s %9s %9s%n", "mode", "maxDataConnections", "failures",
+                    "p50 ms", "p95 ms", "p99 ms", "max ms", "MB/s");
+            for (String mode : TunnelManager.TUNNEL_MODES) {
+                for (int maxDataConnections : maxDataConnectionsValues) {
+                    RunResult result = useStandIn ?
+                            runRequests(standInProxy.getAddress().getPort(), payloadUrl, requests, concurrency) :
+                            runThroughTunnel(mode, maxDataConnections, payloadUrl, requests, concurrency);
+                    printResult(mode, maxDataConnections, result);
+                }
+            }
+        } finally {
+            origin.stop(0);
+            if (standInProxy != null)
+                standInProxy.stop(0);
+        }
+    }
+
+    private static RunResult runThroughTunnel(String mode, int maxDataConnections, String payloadUrl, int requests,
+                                              int concurrency) throws Exception {
+        String userName = System.getProperty(CUSTOM_USER_NAME);
+        String accessKey = System.getProperty(CUSTOM_USER_KEY);
+        if (userName == null || accessKey == null)
+            throw new IllegalArgumentException(CUSTOM_USER_NAME + " and " + CUSTOM_USER_KEY + " are needed to start " +
+                    "a tunnel, or pass standIn to run against the stand-in proxy");
+        TunnelManager tunnelManager = TunnelManager.startTunnelWithRetries(
+                "mode " + mode + " --maxDataConnections " + maxDataConnections, userName, accessKey);
+        try {
+            if (!tunnelManager.waitForTunnelToBeReady())
+                throw new IllegalStateException("Tunnel with mode " + mode + " is not ready");
+            int proxyPort = Integer.parseInt(tunnelManager.getTunnelLocalProxyPort());
+            return runRequests(proxyPort, payloadUrl, requests, concurrency);
+        } finally {
+            tunnelManager.stopTunnel();
+        }
+    }
+
+    private static RunResult runRequests(int proxyPort, String payloadUrl, int requests, int concurrency)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder().proxy(ProxySelector.of(new InetSocketAddress("127.0.0.1", proxyPort)))
+                .connectTimeout(REQUEST_TIMEOUT).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(payloadUrl)).timeout(REQUEST_TIMEOUT).GET().build();
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Future<Long>> responses = new ArrayList<>(requests);
+        long[] latencyNanos = new long[requests];
+        long startNanos = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                int requestIndex = i;
+                responses.add(executor.submit(() -> {
+                    inFlight.acquire();
+                    try {
+                        long requestStartNanos = System.nanoTime();
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        latencyNanos[requestIndex] = System.nanoTime() - requestStartNanos;
+                        return response.statusCode() == 200 ? (long) response.body().length : -1L;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+        }
+        long wallNanos = System.nanoTime() - startNanos;
+
+        int failures = 0;
+        long totalBytes = 0;
+        List<Long> successfulLatencies = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            try {
+                long bytes = responses.get(i).get();
+                if (bytes < 0) {
+                    failures++;
+                } else {
+                    totalBytes += bytes;
+                    successfulLatencies.add(latencyNanos[i]);
+                }
+            } catch (Exception e) {
+                failures++;
+            }
+        }
+        long[] sortedLatencies = successfulLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new RunResult(requests, failures, sortedLatencies, totalBytes, wallNanos);
+    }
+
+    private static void printResult(String mode, int maxDataConnections, RunResult result) {
+        long[] latencies = result.latencyNanos();
+        if (latencies.length == 0) {
+            System.out.printf("%-6s %-18d %9d%n", mode, maxDataConnections, result.failures());
+            return;
+        }
+        double megabytesPerSecond = result.totalBytes() / (1024.0 * 1024.0) / (result.wallNanos() / 1e9);
+        System.out.printf("%-6s %-18d %9d %9.2f %9.2f %9.2f %9.2f %9.1f%n", mode, maxDataConnections,
+                result.failures(), percentileMillis(latencies, 50), percentileMillis(latencies, 95),
+                percentileMillis(latencies, 99), latencies[latencies.length - 1] / 1e6, megabytesPerSecond);
+    }
+
+    private static double percentileMillis(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(sortedLatencies.length * percentile / 100) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+
+    private static HttpServer startOrigin(int payloadBytes) throws IOException {
+        byte[] payload = new byte[payloadBytes];
+        Arrays.fill(payload, (byte) 'x');
+        HttpServer origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        origin.createContext(PAYLOAD_PATH, exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(payload);
+            }
+        });
+        origin.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        origin.start();
+        return origin;
+    }
+
+    /// Forwarding http proxy standing in for the local proxy of the tunnel
+    private static HttpServer startStandInProxy() throws IOException {
+        HttpClient upstream = HttpClient.newBuilder().proxy(HttpClient.Builder.NO_PROXY).build();
+        HttpServer proxy = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        proxy.createContext("/", exchange -> forward(upstream, exchange));
+        proxy.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        proxy.start();
+        return proxy;
+    }
+
+    private static void forward(HttpClient upstream, HttpExchange exchange) throws IOException {
+        try {
+            // Proxied requests carry the absolute url of the origin
+            HttpRequest request = HttpRequest.newBuilder(exchange.getRequestURI()).timeout(REQUEST_TIMEOUT)
+                    .method(exchange.getRequestMethod(), HttpRequest.BodyPublishers.noBody()).build();
+            HttpResponse<InputStream> response = upstream.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(0);
+            exchange.sendResponseHeaders(response.statusCode(), contentLength);
+            try (InputStream upstreamBody = response.body(); OutputStream body = exchange.getResponseBody()) {
+                upstreamBody.transferTo(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(502, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+}
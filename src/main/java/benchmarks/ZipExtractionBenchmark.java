@@ -0,0 +1,86 @@
+package benchmarks;
+
+import com.google.gson.JsonObject;
+import utility.BaseClass;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/// Measures BaseClass.processZipFile on a synthetic paged command logs archive.
+/// Run with: mvn compile exec:java -Dexec.mainClass="benchmarks.ZipExtractionBenchmark" -Dexec.args="1000 10"
+public class ZipExtractionBenchmark {
+    private static final int COMMANDS_PER_PAGE = 10;
+    private static final int WARMUP_ITERATIONS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int numberOfEntries = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Path archive = createSyntheticArchive(numberOfEntries);
+        try {
+            BaseClass baseClass = new BaseClass();
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                baseClass.processZipFile(archive.toString());
+            }
+
+            long[] timings = new long[iterations];
+            int extractedCommands = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                JsonObject result = baseClass.processZipFile(archive.toString());
+                timings[i] = System.nanoTime() - start;
+                extractedCommands = result.get("jsonData").getAsJsonArray().size();
+            }
+
+            Arrays.sort(timings);
+            double median = timings[iterations / 2] / 1_000_000.0;
+            System.out.printf("Entries: %d, iterations: %d, extracted commands: %d%n", numberOfEntries, iterations,
+                    extractedCommands);
+            System.out.printf("processZipFile min: %.2f ms, median: %.2f ms, max: %.2f ms, median per entry: %.4f ms%n",
+                    timings[0] / 1_000_000.0, median, timings[iterations - 1] / 1_000_000.0, median / numberOfEntries);
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    /// Sequenced pages are written in shuffled order so the sequence sorting is exercised as well
+    private static Path createSyntheticArchive(int numberOfEntries) throws IOException {
+        Path archive = Files.createTempFile("zipExtractionBenchmark", ".zip");
+        List<Integer> pageNumbers = new ArrayList<>();
+        for (int i = 1; i <= numberOfEntries; i++) {
+            pageNumbers.add(i);
+        }
+        Collections.shuffle(pageNumbers, new Random(42));
+
+        try (ZipOutputStream zipStream = new ZipOutputStream(new FileOutputStream(archive.toFile()))) {
+            for (int pageNumber : pageNumbers) {
+                zipStream.putNextEntry(new ZipEntry("commands-" + pageNumber + ".json"));
+                zipStream.write(createCommandsPage(pageNumber).getBytes(StandardCharsets.UTF_8));
+                zipStream.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+    private static String createCommandsPage(int pageNumber) {
+        StringBuilder page = new StringBuilder("[");
+        for (int i = 0; i < COMMANDS_PER_PAGE; i++) {
+            if (i > 0)
+                page.append(',');
+            page.append(String.format(
+                    "{\"Key\":\"%d-%d\",\"Value\":{\"requestPath\":\"/wd/hub/session/abc/url\",\"requestMethod\":\"POST\",\"requestBody\":\"{\\\"url\\\":\\\"https://example.com/%d\\\"}\",\"responseStatus\":200}}",
+                    pageNumber, i, i));
+        }
+        return page.append(']').toString();
+    }
+}
@@ -93,6 +93,10 @@ public enum SoftAssertionMessages implements BaseClass.MessageHolder {
     LOGS_COUNT_MISMATCH_ERROR_MESSAGE("%s logs count fetched from %s doesn't match. Expected: %s, Actual: %s"),
     EXPECTED_CONSOLE_LOGS_DATA_NOT_AVAILABLE_ERROR_MESSAGE("Expected logs to verify console logs are missing."),
     EXPECTED_CONSOLE_LOGS_ARE_NOT_AVAILABLE_ERROR_MESSAGE("Expected log: %s is missing from the console logs fetched from API version: %s"),
+    CAPTURED_CONSOLE_LOG_IS_NOT_PRESENT_ERROR_MESSAGE("Log: %s captured in the browser is missing from the console logs fetched from API version: %s"),
+    CAPTURED_NAVIGATION_IS_NOT_PRESENT_IN_LOGS_ERROR_MESSAGE("Navigation to %s captured in the browser is not present in the %s logs."),
+    CAPTURED_NAVIGATION_STATUS_MISMATCH_ERROR_MESSAGE("Status code of %s in the %s logs doesn't match the browser. Expected: %s, Actual: %s"),
+    CAPTURED_NAVIGATIONS_COUNT_MISMATCH_ERROR_MESSAGE("%s logs have fewer entries than the navigations captured in the browser. Navigations: %s, Entries: %s"),
     TERMINAL_LOGS_NOT_UPLOADED_ERROR_MESSAGE("Expected terminal logs data is empty, please upload terminal logs before verifying terminal logs"),
     TERMINAL_LOGS_DATA_MISMATCH_ERROR_MESSAGE("Terminal logs data doesn't match for the logs data fetched from API version: %s"),
     UNABLE_TO_EXTRACT_VIDEO_URLS_ERROR_MESSAGE("Unable to extract video urls from API response. Status: %s Message: %s"),
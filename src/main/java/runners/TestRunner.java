@@ -1,5 +1,6 @@
 package runners;
 
+import TestManagers.TunnelBinaryManager;
 import TestManagers.TunnelManager;
 import automationHelper.AutomationAPIHelper;
 import io.cucumber.testng.AbstractTestNGCucumberTests;
@@ -11,6 +12,7 @@ import utility.ScenarioUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Properties;
 
 import static java.lang.System.getProperty;
@@ -78,13 +80,19 @@ public class TestRunner extends AbstractTestNGCucumberTests {
     }
 
     private void downloadTunnelBinary() {
-        BaseClass baseClass = new BaseClass();
-        final String tunnelBinaryPath = TunnelManager.getTunnelBinaryPath();
-        boolean isBinaryAlreadyExists = baseClass.fileExists(tunnelBinaryPath, 5, 5);
-        if (!isBinaryAlreadyExists) {
-            TunnelManager.downloadTunnelBinary(System.getProperty(ENV));
-        } else {
-            System.out.println("Tunnel binary already exists at: " + tunnelBinaryPath);
+        try {
+            Path tunnelBinaryPath = TunnelBinaryManager.installTunnelBinary(System.getProperty(ENV));
+            System.out.println("Tunnel binary ready at: " + tunnelBinaryPath);
+        } catch (Exception e) {
+            System.err.println("Unable to install tunnel binary from cache, falling back to the setup script: " + e.getMessage());
+            BaseClass baseClass = new BaseClass();
+            final String tunnelBinaryPath = TunnelManager.getTunnelBinaryPath();
+            boolean isBinaryAlreadyExists = baseClass.fileExists(tunnelBinaryPath, 5, 5);
+            if (!isBinaryAlreadyExists) {
+                TunnelManager.downloadTunnelBinary(System.getProperty(ENV));
+            } else {
+                System.out.println("Tunnel binary already exists at: " + tunnelBinaryPath);
+            }
         }
     }
 }
@@ -12,12 +12,11 @@ import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
 import com.networknt.schema.ValidationMessage;
 import lombok.NonNull;
-import lombok.SneakyThrows;
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
-import java.net.ServerSocket;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
@@ -31,12 +30,13 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import static utility.EnvSetup.TEST_CAPS_MAP;
 import static utility.FrameworkConstants.*;
@@ -48,8 +48,6 @@ public class BaseClass {
             v -> new Random().nextBoolean());
 
     private final Logger ltLogger = LogManager.getLogger(BaseClass.class);
-    private final StringBuilder commandErrOutput = new StringBuilder();
-    private StringBuilder commandStdOutput = new StringBuilder();
 
     public static String getRandomLowerUpperCaseOfSpecificString(String string) {
         Random random = new Random();
@@ -107,29 +105,6 @@ public class BaseClass {
         return wrappedCommand;
     }
 
-    public void runMacShellCommand(String[] cmd) {
-        String s;
-        try {
-            Process p = Runtime.getRuntime().exec(cmd);
-            BufferedReader stdInput = new BufferedReader(new InputStreamReader(p.getInputStream()));
-            BufferedReader stdError = new BufferedReader(new InputStreamReader(p.getErrorStream()));
-            while ((s = stdInput.readLine()) != null) {
-                commandStdOutput.append(s);
-                ltLogger.info("standard command output :- {} ", s);
-            }
-            while ((s = stdError.readLine()) != null) {
-                commandErrOutput.append(s);
-                ltLogger.info("Command error output :- {} ", s);
-            }
-        } catch (IOException e) {
-            ltLogger.info("exception happened - here's what I know: ");
-            ltLogger.info(e.getMessage());
-            e.printStackTrace();
-        } catch (Exception e) {
-            ltLogger.info(e.getMessage());
-        }
-    }
-
     /**
      * Parses a string of key-value pairs into a nested HashMap. Supports:
      * - Flat pairs: "key1=val1,key2=val2"
@@ -313,21 +288,6 @@ public class BaseClass {
         }
     }
 
-    @SneakyThrows
-    public String getOpenPort() {
-        ServerSocket serverSocket = new ServerSocket(0);
-        serverSocket.close();
-        return String.valueOf(serverSocket.getLocalPort());
-    }
-
-    public String getCommandStdOutput() {
-        return commandStdOutput.toString();
-    }
-
-    public void clearGetCommandStdOutput() {
-        commandStdOutput = new StringBuilder();
-    }
-
     public String createStringBodyFromHashMap(HashMap<String, String> hashmap) {
         StringBuilder stringBuilder = new StringBuilder("{");
         hashmap.forEach((key, value) -> stringBuilder.append("\"").append(key).append("\":\"").append(value).append("\","));
@@ -455,121 +415,50 @@ public class BaseClass {
     }
 
     public boolean fileExists(String filePath, int retryCount, int interval) {
-        int count = 0;
-        while (count < retryCount) {
-            File file = new File(filePath);
-            boolean status = file.exists();
-            if (status) {
-                return true;
-            }
-            waitForTime(interval);
-            count++;
-        }
-        return false;
+        File file = new File(filePath);
+        return Poller.poll("file_exists", file::exists).until(Boolean::booleanValue).initialDelay(Duration.ofMillis(250))
+                .maxDelay(Duration.ofSeconds(interval)).timeout(Duration.ofSeconds((long) interval * (retryCount - 1))).run()
+                .isSuccess();
     }
 
-    private static void deleteDirectory(File directory) {
-        if (directory.exists()) {
-            File[] files = directory.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isDirectory()) {
-                        deleteDirectory(file);
-                    } else {
-                        file.delete();
-                    }
-                }
-            }
-            directory.delete();
-        }
-    }
+    private static final Pattern SEQUENCED_JSON_FILE_PATTERN = Pattern.compile(".*-(\\d+)\\.json$");
 
+    /// Reads every entry straight from the zip in a single pass over the central directory. Sequenced json files
+    /// (name-N.json) are processed first in numeric order, then the remaining files in archive order.
     public JsonObject processZipFile(String zipFilePath) throws IOException {
-        Path tempDir = Files.createTempDirectory("zipExtract");
-        try {
-            Map<Boolean, List<ZipEntry>> partitionedEntries = partitionEntriesBySequence(zipFilePath);
-            return processAllEntries(zipFilePath, tempDir, partitionedEntries);
-        } finally {
-            deleteDirectory(tempDir.toFile());
-        }
-    }
-
-    private Map<Boolean, List<ZipEntry>> partitionEntriesBySequence(String zipFilePath) throws IOException {
-        Map<Boolean, List<ZipEntry>> partitionedEntries = new HashMap<>();
-        partitionedEntries.put(true, new ArrayList<>());  // Sequenced files
-        partitionedEntries.put(false, new ArrayList<>()); // Non-sequenced files
-
-        try (ZipInputStream zipStream = new ZipInputStream(new FileInputStream(zipFilePath))) {
-            ZipEntry entry;
-            while ((entry = zipStream.getNextEntry()) != null) {
-                boolean isSequenced = hasSequenceNumber(entry.getName());
-                partitionedEntries.get(isSequenced).add(entry);
+        try (ZipFile zipFile = new ZipFile(zipFilePath)) {
+            List<? extends ZipEntry> orderedEntries = orderEntriesBySequence(zipFile);
+            JsonArray combinedJson = new JsonArray();
+            StringBuilder otherFilesContent = new StringBuilder();
+            for (ZipEntry entry : orderedEntries) {
+                processFileContent(zipFile, entry, combinedJson, otherFilesContent);
             }
+            return buildResultObject(combinedJson, otherFilesContent);
         }
-        // Sort only the sequenced files
-        partitionedEntries.get(true).sort(Comparator.comparingInt(this::extractSequenceNumber));
-        ltLogger.info("Partitioned entries after sorting of the files based on numeric value in the file name: {}",
-                partitionedEntries);
-        return partitionedEntries;
-    }
-
-    private JsonObject processAllEntries(String zipFilePath, Path tempDir,
-                                         Map<Boolean, List<ZipEntry>> partitionedEntries) throws IOException {
-        JsonArray combinedJson = new JsonArray();
-        StringBuilder otherFilesContent = new StringBuilder();
-        JsonParser parser = new JsonParser();
-
-        // Process sequenced files first in order
-        processEntryBatch(zipFilePath, tempDir, partitionedEntries.get(true), combinedJson, otherFilesContent, parser);
-
-        // Then process non-sequenced files in any order
-        processEntryBatch(zipFilePath, tempDir, partitionedEntries.get(false), combinedJson, otherFilesContent, parser);
-
-        return buildResultObject(combinedJson, otherFilesContent);
     }
 
-    private void processEntryBatch(String zipFilePath, Path tempDir, List<ZipEntry> entries, JsonArray combinedJson,
-                                   StringBuilder otherFilesContent, JsonParser parser) throws IOException {
-        for (ZipEntry entry : entries) {
-            if (entry.isDirectory())
-                continue;
-
-            Path filePath = tempDir.resolve(entry.getName());
-            validatePathSafety(tempDir, filePath);
+    private List<? extends ZipEntry> orderEntriesBySequence(ZipFile zipFile) {
+        List<ZipEntry> sequencedEntries = new ArrayList<>();
+        List<ZipEntry> nonSequencedEntries = new ArrayList<>();
+        zipFile.stream().filter(entry -> !entry.isDirectory())
+                .forEach(entry -> (hasSequenceNumber(entry.getName()) ? sequencedEntries : nonSequencedEntries).add(entry));
 
-            extractSingleFile(zipFilePath, entry, filePath);
-            processFileContent(entry, filePath, combinedJson, otherFilesContent, parser);
-        }
+        sequencedEntries.sort(Comparator.comparingInt(this::extractSequenceNumber));
+        ltLogger.info("Zip entries after sorting of the files based on numeric value in the file name: {}, other files: {}",
+                sequencedEntries, nonSequencedEntries);
+        sequencedEntries.addAll(nonSequencedEntries);
+        return sequencedEntries;
     }
 
     private boolean hasSequenceNumber(String filename) {
-        return Pattern.compile(".*-\\d+\\.json$").matcher(filename.toLowerCase()).find();
+        return SEQUENCED_JSON_FILE_PATTERN.matcher(filename.toLowerCase()).find();
     }
 
     private int extractSequenceNumber(ZipEntry entry) {
-        Matcher matcher = Pattern.compile(".*-(\\d+)\\.json$").matcher(entry.getName().toLowerCase());
+        Matcher matcher = SEQUENCED_JSON_FILE_PATTERN.matcher(entry.getName().toLowerCase());
         return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
     }
 
-    private void extractSingleFile(String zipFilePath, ZipEntry entry, Path destPath) throws IOException {
-        try (ZipInputStream zipStream = new ZipInputStream(new FileInputStream(zipFilePath))) {
-            ZipEntry current;
-            while ((current = zipStream.getNextEntry()) != null) {
-                if (current.getName().equals(entry.getName())) {
-                    Files.copy(zipStream, destPath);
-                    return;
-                }
-            }
-        }
-        throw new IOException("File not found in zip: " + entry.getName());
-    }
-
-    private void validatePathSafety(Path baseDir, Path filePath) throws IOException {
-        if (!filePath.normalize().startsWith(baseDir)) {
-            throw new IOException("Invalid zip entry: " + filePath);
-        }
-    }
-
     private JsonObject buildResultObject(JsonArray jsonData, StringBuilder otherContent) {
         JsonObject result = new JsonObject();
         result.add("jsonData", jsonData);
@@ -577,21 +466,21 @@ public class BaseClass {
         return result;
     }
 
-    private void processFileContent(ZipEntry entry, Path filePath, JsonArray combinedJson,
-                                    StringBuilder otherFilesContent, JsonParser parser) throws IOException {
-
-        String content = Files.readString(filePath);
+    private void processFileContent(ZipFile zipFile, ZipEntry entry, JsonArray combinedJson,
+                                    StringBuilder otherFilesContent) throws IOException {
         String fileName = entry.getName().toLowerCase();
-
-        if (fileName.endsWith(".json") || fileName.endsWith(".har")) {
-            addJsonContent(parser, content, combinedJson);
-        } else {
-            otherFilesContent.append(content).append("\n");
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(zipFile.getInputStream(entry), StandardCharsets.UTF_8))) {
+            if (fileName.endsWith(".json") || fileName.endsWith(".har")) {
+                addJsonContent(JsonParser.parseReader(reader), combinedJson);
+            } else {
+                reader.transferTo(new StringBuilderWriter(otherFilesContent));
+                otherFilesContent.append("\n");
+            }
         }
     }
 
-    private void addJsonContent(JsonParser parser, String content, JsonArray combinedJson) {
-        JsonElement element = parser.parse(content);
+    private void addJsonContent(JsonElement element, JsonArray combinedJson) {
         if (element.isJsonArray()) {
             combinedJson.addAll(element.getAsJsonArray());
         } else {
@@ -645,34 +534,46 @@ public class BaseClass {
         return input.replace("\\u002f", "/").replace("\\u002F", "/").replace("\\/", "/").replace("\\\\", "");
     }
 
-    public Set<String> validateSchema(String obtainedData, String expectedJsonFilePath) {
-        try {
-            File schemaFile = new File(expectedJsonFilePath);
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode schemaNode = objectMapper.readTree(schemaFile);
-
-            JsonNode apiNode = objectMapper.readTree(obtainedData);
-
-            JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
-            JsonSchema schema = schemaFactory.getSchema(schemaNode);
+    private static final ObjectMapper schemaObjectMapper = new ObjectMapper();
+    private static final Map<String, JsonSchema> compiledSchemaCache = new ConcurrentHashMap<>();
 
-            Set<ValidationMessage> validationResult = schema.validate(apiNode);
-            Set<String> result = new HashSet<>();
-
-            // If there are any validation errors, return false
-            if (!validationResult.isEmpty()) {
-                for (ValidationMessage validationMessage : validationResult) {
-                    result.add(validationMessage.getMessage());
-                }
+    /// Schema files don't change during a run, so each one is read and compiled only once per process
+    private static JsonSchema getCompiledSchema(String schemaFilePath) {
+        return compiledSchemaCache.computeIfAbsent(schemaFilePath, path -> {
+            try {
+                JsonNode schemaNode = schemaObjectMapper.readTree(new File(path));
+                JsonSchema schema = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7).getSchema(schemaNode);
+                schema.initializeValidators();
+                return schema;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
-            ltLogger.info("Schema validation completed.");
-            return result;
+        });
+    }
 
+    public Set<String> validateSchema(String obtainedData, String expectedJsonFilePath) {
+        try {
+            return validateSchema(schemaObjectMapper.readTree(obtainedData), expectedJsonFilePath);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /// Use this when the payload is already parsed, to avoid parsing the same payload again for validation
+    public Set<String> validateSchema(JsonNode obtainedData, String expectedJsonFilePath) {
+        Set<ValidationMessage> validationResult = getCompiledSchema(expectedJsonFilePath).validate(obtainedData);
+        Set<String> result = new HashSet<>();
+
+        // If there are any validation errors, return false
+        if (!validationResult.isEmpty()) {
+            for (ValidationMessage validationMessage : validationResult) {
+                result.add(validationMessage.getMessage());
+            }
+        }
+        ltLogger.info("Schema validation completed.");
+        return result;
+    }
+
     public String removeBasicAuthHeadersFromUrl(String url) {
         url = url.replaceAll("https?://([^@]+@)", "https://");
         return url;
@@ -680,40 +581,36 @@ public class BaseClass {
 
     private String executeFFprobeCommand(String[] command, String videoFilePath, int... customRetryCount) {
         int maxRetries = customRetryCount.length > 0 ? customRetryCount[0] : 5;
-        StringBuilder output = new StringBuilder();
-        Exception exception = null;
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            output.setLength(0); // clear output buffer
-
+        Poller.Result<String> result = Poller.poll("ffprobe_command", () -> {
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.command().add(videoFilePath); // Add video file path to the command
+            builder.redirectErrorStream(true);
+            ltLogger.info("Command: {}", String.join(" ", builder.command()));
+            StringBuilder output = new StringBuilder();
             try {
-                ProcessBuilder builder = new ProcessBuilder(command);
-                builder.command().add(videoFilePath); // Add video file path to the command
-                builder.redirectErrorStream(true);
-                ltLogger.info("Command: {}", String.join(" ", builder.command()));
                 Process process = builder.start();
-
                 try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
                     String line;
                     while ((line = reader.readLine()) != null) {
                         output.append(line).append("\n");
                     }
                 }
-
                 process.waitFor();
-
-                return output.toString().trim();
-            } catch (IOException | InterruptedException e) {
-                ltLogger.error("Error executing FFprobe command on attempt {}: {}", attempt, e.getMessage());
-                exception = e;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
             }
+            return output.toString().trim();
+        }).initialDelay(Duration.ofMillis(250)).maxDelay(Duration.ofSeconds(2)).maxAttempts(maxRetries)
+                .timeout(Duration.ofSeconds(2L * maxRetries)).run();
 
-            // Wait before retrying, unless last attempt
-            if (attempt < maxRetries) {
-                waitForTime(2);
-            }
+        if (!result.isSuccess()) {
+            throw new RuntimeException("Error executing FFprobe command after " + result.attempts() + " attempts.",
+                    result.lastException());
         }
-
-        throw new RuntimeException("Error executing FFprobe command after " + maxRetries + " attempts.", exception);
+        return result.value();
     }
 
     public Map<String, Object> extractMetaDataOfSpecificVideoFile(String videoFilePath) {
@@ -767,15 +664,33 @@ public class BaseClass {
     }
 
     public void waitForSomeTimeAfterTestCompletionForLogsToBeUploaded(String testEndTime, int seconds) {
+        Duration remainingTime = getRemainingTimeForLogsToBeUploaded(testEndTime, seconds);
+        if (!remainingTime.isZero()) {
+            ltLogger.info("Waiting for {} secs before verifying the logs.", remainingTime.getSeconds());
+            waitForTime((int) remainingTime.getSeconds());
+        }
+    }
+
+    /// Time left from the `seconds` upload window which starts at test completion
+    public Duration getRemainingTimeForLogsToBeUploaded(String testEndTime, int seconds) {
         String currentTime = getCurrentTimeIST();
         ltLogger.info("Time while checking for logs: {}", currentTime);
         ltLogger.info("Time of test completion: {}", testEndTime);
         Duration durationTillTestEnded = getTimeDifference(testEndTime, currentTime, IST_TimeZone);
         if (durationTillTestEnded.getSeconds() <= seconds) {
-            int requiredTime = (int) (seconds - Math.floor(durationTillTestEnded.getSeconds()));
-            ltLogger.info("Waiting for {} secs before verifying the logs.", requiredTime);
-            waitForTime(requiredTime);
+            return Duration.ofSeconds(seconds - durationTillTestEnded.getSeconds());
         }
+        return Duration.ZERO;
+    }
+
+    /// Adds the duration of a session startup phase to the test report and to the run wide histogram of the phase
+    @SuppressWarnings("unchecked")
+    public void recordSessionStartupPhase(String phase, long millis) {
+        ltLogger.info("Session startup phase {} took {} ms", phase, millis);
+        Map<String, Object> phases = (Map<String, Object>) EnvSetup.TEST_REPORT.get()
+                .computeIfAbsent(TEST_SETUP_PHASES, key -> new LinkedHashMap<String, Object>());
+        phases.put(phase, String.valueOf(millis / 1000.00));
+        LatencyHistogram.forName(SESSION_STARTUP_HISTOGRAM_PREFIX + phase).record(millis);
     }
 
     /**
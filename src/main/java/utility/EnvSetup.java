@@ -1,6 +1,5 @@
 package utility;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.WebDriver;
 import org.yaml.snakeyaml.Yaml;
@@ -74,12 +73,9 @@ public class EnvSetup {
             HashMap::new);
     public static final ThreadLocal<Boolean> IS_EXTENSION_TEST = new ThreadLocal<>();
     public static final ThreadLocal<Boolean> IS_EXTENSION_CLIENT_TEST = new ThreadLocal<>();
+    public static final ThreadLocal<Boolean> IS_WARM_SESSION_POOL_ENABLED = new ThreadLocal<>();
+    public static final ThreadLocal<Boolean> IS_SHARED_TUNNEL_ENABLED = new ThreadLocal<>();
     public static final ThreadLocal<String> TEST_SCENARIO_NAME = new ThreadLocal<>();
-    public static final ThreadLocal<Integer> SESSION_COMMAND_LOGS_COUNT_FROM_TEST_API = new ThreadLocal<>();
-    public static final ThreadLocal<Integer> SESSION_EXCEPTION_LOGS_COUNT_FROM_TEST_API = new ThreadLocal<>();
-    public static final ThreadLocal<Integer> SESSION_VISUAL_LOGS_COUNT_FROM_TEST_API = new ThreadLocal<>();
-    public static final ThreadLocal<JsonNode> TEST_DETAIL_API_RESPONSE = new ThreadLocal<>();
-    public static final ThreadLocal<JsonNode> TEST_FEATURE_FLAG_DETAILS = new ThreadLocal<>();
     public static final ThreadLocal<Queue<String>> TEST_SESSION_ID_QUEUE = ThreadLocal.withInitial(
             ConcurrentLinkedQueue::new);
     public static final ThreadLocal<Queue<String>> CLIENT_TEST_SESSION_ID_QUEUE = ThreadLocal.withInitial(
@@ -109,6 +109,26 @@ public class FrameworkConstants extends BaseClass {
     public static final String RESTORE_EXISTING_AUTO_HEAL_BASELINES = "RESTORE_EXISTING_AUTO_HEAL_BASELINES";
     public static final String PRODUCT_NAME = "PRODUCT_NAME";
     public static final String REWRITE_EXISTING_DATA = "REWRITE_EXISTING_DATA";
+    public static final String HTTP_POOL_MAX_TOTAL = "HTTP_POOL_MAX_TOTAL";
+    public static final String HTTP_POOL_MAX_PER_ROUTE = "HTTP_POOL_MAX_PER_ROUTE";
+    public static final String HTTP_POOL_IDLE_TIMEOUT_SECONDS = "HTTP_POOL_IDLE_TIMEOUT_SECONDS";
+    public static final String SESSION_DETAILS_CACHE_TTL_SECONDS = "SESSION_DETAILS_CACHE_TTL_SECONDS";
+    public static final String TEST_DETAILS_CACHE_TTL_SECONDS = "TEST_DETAILS_CACHE_TTL_SECONDS";
+    public static final String WARM_SESSION_POOL_SIZE = "WARM_SESSION_POOL_SIZE";
+    public static final String WARM_SESSION_POOL_MAX_IDLE_SECONDS = "WARM_SESSION_POOL_MAX_IDLE_SECONDS";
+    public static final String WARM_SESSION_POOL_MAX_AGE_SECONDS = "WARM_SESSION_POOL_MAX_AGE_SECONDS";
+    public static final String WARM_SESSION_POOL_RETIRE_AFTER_SECONDS = "WARM_SESSION_POOL_RETIRE_AFTER_SECONDS";
+    public static final String GRID_CONNECTION_PROBE = "GRID_CONNECTION_PROBE";
+    public static final String WAIT_POLLING_INTERVAL_MILLIS = "WAIT_POLLING_INTERVAL_MILLIS";
+    public static final String IN_BROWSER_WAITS = "IN_BROWSER_WAITS";
+    public static final String BROWSER_EVENT_CAPTURE = "BROWSER_EVENT_CAPTURE";
+    public static final String BROWSER_EVENT_CAPTURE_BUFFER_SIZE = "BROWSER_EVENT_CAPTURE_BUFFER_SIZE";
+    public static final String LOCAL_BROWSER_REUSE = "LOCAL_BROWSER_REUSE";
+    public static final String TUNNEL_POOL_HEALTH_CHECK_INTERVAL_SECONDS = "TUNNEL_POOL_HEALTH_CHECK_INTERVAL_SECONDS";
+    public static final String TUNNEL_PORT_RANGE = "TUNNEL_PORT_RANGE";
+    public static final String TUNNEL_BINARY_CACHE_DIR = "TUNNEL_BINARY_CACHE_DIR";
+    public static final String TUNNEL_BINARY_DOWNLOAD_URL = "TUNNEL_BINARY_DOWNLOAD_URL";
+    public static final String TUNNEL_BINARY_DOWNLOAD_PARTS = "TUNNEL_BINARY_DOWNLOAD_PARTS";
 
     /// RP keys
     public static final Set<String> REPORT_PORTAL_KEYS = Set.of("rp.endpoint", "rp.api.key", "rp.project", "rp.launch");
@@ -118,6 +138,13 @@ public class FrameworkConstants extends BaseClass {
     public static final String TEST_SETUP_TIME = "test_setup_time";
     public static final String TEST_EXECUTION_TIME = "test_execution_time";
     public static final String TEST_STOP_TIME = "test_stop_time";
+    public static final String TEST_SETUP_PHASES = "test_setup_phases";
+    public static final String WARM_SESSION_PRE_LEASE_TIME = "warm_session_pre_lease_time";
+    public static final String SESSION_STARTUP_HISTOGRAM_PREFIX = "session_startup.";
+    public static final String WEBDRIVER_COMMAND_HISTOGRAM_PREFIX = "webdriver_command.";
+    public static final String TUNNEL_TIME_TO_READY = "tunnel_time_to_ready";
+    public static final String TUNNEL_HISTOGRAM_PREFIX = "tunnel.";
+    public static final String SESSION_API_DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
     public static final String SESSION_ID = "test_session_id";
     public static final String SESSION_ID_CLIENT = "client_session_id";
     public static final String TEST_START_TIMESTAMP = "test_start_timestamp";
@@ -287,7 +314,7 @@ public class FrameworkConstants extends BaseClass {
     public static final String UTC_DATE_TIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
 
     public enum testVerificationDataKeys {
-        URL, LOCATORS, JAVA_SCRIPTS, BROWSER_VERSION, ACTUAL_BROWSER_VERSION, BROWSER_VERSION_ID, GEO_LOCATION, RESOLUTION, CONSOLE_LOG, TERMINAL_LOG, EXCEPTION_LOG, AUTO_HEAL_DATA, TEST_SHARE_LINK, BUILD_SHARE_LINK, BROWSER_PROFILE_S3_URL, BROWSER_PROFILE_LAST_UPDATED_TIME, SESSION_CREATION_ERROR_MESSAGE, CUSTOM_DATA
+        URL, LOCATORS, JAVA_SCRIPTS, BROWSER_VERSION, ACTUAL_BROWSER_VERSION, BROWSER_VERSION_ID, GEO_LOCATION, RESOLUTION, CONSOLE_LOG, TERMINAL_LOG, EXCEPTION_LOG, AUTO_HEAL_DATA, TEST_SHARE_LINK, BUILD_SHARE_LINK, BROWSER_PROFILE_S3_URL, BROWSER_PROFILE_LAST_UPDATED_TIME, SESSION_CREATION_ERROR_MESSAGE, CUSTOM_DATA, CAPTURED_NAVIGATION_EVENTS, CAPTURED_CONSOLE_EVENTS
     }
 
     @Getter
@@ -409,6 +436,17 @@ public class FrameworkConstants extends BaseClass {
     public static final String jsToCloseTab = "window.close();";
     public static final String jsToScrollElementIntoView = "arguments[0].scrollIntoView({ behavior: 'smooth', block: 'center', inline: 'nearest' });";
     public static final String jsToGetTheUserAgent = "return navigator.userAgent;";
+    /// Helper functions prepended to the batched DOM query scripts below
+    public static final String jsElementFinder = "function findAll(type, value) { switch (type) { " + "  case 'CSS': return Array.from(document.querySelectorAll(value)); " + "  case 'XPATH': var snapshot = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null); var nodes = []; for (var i = 0; i < snapshot.snapshotLength; i++) nodes.push(snapshot.snapshotItem(i)); return nodes; " + "  case 'ID': var element = document.getElementById(value); return element ? [element] : []; " + "  case 'NAME': return Array.from(document.getElementsByName(value)); " + "  case 'CLASS_NAME': return Array.from(document.getElementsByClassName(value)); " + "  case 'TAG_NAME': return Array.from(document.getElementsByTagName(value)); " + "} return []; } " + "function textOf(element) { return (element.innerText || element.textContent || '').trim(); } ";
+    /// Args: item locator type and value, scroll container locator type and value (nullable), settle ms. Scrolls the
+    /// container from top to bottom and resolves with the distinct texts of all items as a JSON array.
+    public static final String jsToCollectTextsOfElements = "var itemType = arguments[0], itemValue = arguments[1], containerType = arguments[2], containerValue = arguments[3], settleMs = arguments[4], done = arguments[arguments.length - 1]; " + "var texts = [], seen = new Set(); " + "function collect() { findAll(itemType, itemValue).forEach(function (element) { var text = textOf(element); if (!seen.has(text)) { seen.add(text); texts.push(text); } }); } " + "var container = containerType ? findAll(containerType, containerValue)[0] : null; " + "if (!container) { collect(); done(JSON.stringify(texts)); } else { " + "  container.scrollTop = 0; " + "  var step = function () { collect(); var previousScrollTop = container.scrollTop; " + "    if (previousScrollTop + container.clientHeight >= container.scrollHeight - 1) { done(JSON.stringify(texts)); return; } " + "    container.scrollTop = previousScrollTop + Math.max(1, Math.floor(container.clientHeight * 0.8)); " + "    if (container.scrollTop === previousScrollTop) { done(JSON.stringify(texts)); return; } " + "    setTimeout(step, settleMs); }; " + "  setTimeout(step, settleMs); }";
+    /// Args: row locator type and value, column names, column css selectors relative to the row. Returns a JSON array
+    /// with one object per row, or the row text under `text` when no columns are given.
+    public static final String jsToExtractTableRows = "var rows = findAll(arguments[0], arguments[1]), columnNames = arguments[2], columnSelectors = arguments[3]; " + "return JSON.stringify(rows.map(function (row) { var record = {}; " + "  if (columnNames.length === 0) record.text = textOf(row); " + "  columnNames.forEach(function (name, i) { var cell = row.querySelector(columnSelectors[i]); record[name] = cell ? textOf(cell) : null; }); " + "  return record; }));";
+    /// Args: locator type, locator value, wait for visible, timeout ms, polling ms. Resolves with the element (or true
+    /// when waiting for it to disappear) as soon as a DOM mutation satisfies the state, null/false on timeout.
+    public static final String jsToWaitForElementState = "var locatorType = arguments[0], locatorValue = arguments[1], waitForVisible = arguments[2], timeoutMs = arguments[3], pollingMs = arguments[4], done = arguments[arguments.length - 1]; " + "function find() { switch (locatorType) { " + "  case 'CSS': return document.querySelector(locatorValue); " + "  case 'XPATH': return document.evaluate(locatorValue, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue; " + "  case 'ID': return document.getElementById(locatorValue); " + "  case 'NAME': return document.getElementsByName(locatorValue)[0] || null; " + "  case 'CLASS_NAME': return document.getElementsByClassName(locatorValue)[0] || null; " + "  case 'TAG_NAME': return document.getElementsByTagName(locatorValue)[0] || null; " + "} return null; } " + "function isVisible(el) { if (!el || !el.isConnected) return false; var style = window.getComputedStyle(el); " + "  return style.visibility !== 'hidden' && style.display !== 'none' && (el.offsetWidth > 0 || el.offsetHeight > 0 || el.getClientRects().length > 0); } " + "var finished = false; " + "function finish(result) { if (finished) return; finished = true; observer.disconnect(); clearInterval(interval); clearTimeout(timer); done(result); } " + "function check() { var el = find(); var visible = isVisible(el); if (waitForVisible ? visible : !visible) finish(waitForVisible ? el : true); } " + "var observer = new MutationObserver(check); " + "observer.observe(document.documentElement, {childList: true, subtree: true, attributes: true, characterData: true}); " + "var interval = setInterval(check, pollingMs); " + "var timer = setTimeout(function () { finish(waitForVisible ? null : false); }, timeoutMs); " + "check();";
 
     /// Runtime constants
     public static final Map<String, String> USER_TO_BEARER_TOKEN_MAP = new HashMap<>();
@@ -0,0 +1,97 @@
+package utility;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Thread safe latency histogram with exponential buckets, shared by all scenarios of a run.
+/// Buckets grow by 20% from 1 ms up to one hour, so a reported percentile is at most 20% above the real value.
+public final class LatencyHistogram {
+    private static final double BUCKET_GROWTH = 1.2;
+    private static final long MAX_TRACKED_MILLIS = 3_600_000;
+    private static final long[] BUCKET_UPPER_BOUNDS = createBucketUpperBounds();
+
+    private static final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_UPPER_BOUNDS.length];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMillis = new LongAdder();
+    private final LongAccumulator minMillis = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0);
+
+    /// Histogram which is not registered, for data which belongs to a single session or scenario
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    private static long[] createBucketUpperBounds() {
+        List<Long> bounds = new ArrayList<>();
+        double bound = 1;
+        while (bound < MAX_TRACKED_MILLIS) {
+            long roundedBound = (long) Math.ceil(bound);
+            if (bounds.isEmpty() || bounds.getLast() < roundedBound)
+                bounds.add(roundedBound);
+            bound *= BUCKET_GROWTH;
+        }
+        bounds.add(Long.MAX_VALUE);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /// Histogram registered under the name, created on first use
+    public static LatencyHistogram forName(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        int index = Arrays.binarySearch(BUCKET_UPPER_BOUNDS, value);
+        buckets[index >= 0 ? index : -index - 1].increment();
+        count.increment();
+        totalMillis.add(value);
+        minMillis.accumulate(value);
+        maxMillis.accumulate(value);
+    }
+
+    /// Upper bound of the bucket holding the given percentile, capped at the largest recorded value
+    public long getPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            if (cumulative >= rank)
+                return Math.min(BUCKET_UPPER_BOUNDS[i], maxMillis.get());
+        }
+        return maxMillis.get();
+    }
+
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        long total = count.sum();
+        summary.put("count", total);
+        if (total == 0)
+            return summary;
+        summary.put("min_ms", minMillis.get());
+        summary.put("mean_ms", totalMillis.sum() / total);
+        summary.put("p50_ms", getPercentile(50));
+        summary.put("p90_ms", getPercentile(90));
+        summary.put("p95_ms", getPercentile(95));
+        summary.put("p99_ms", getPercentile(99));
+        summary.put("max_ms", maxMillis.get());
+        return summary;
+    }
+
+    /// Summaries of all histograms whose name starts with the prefix, sorted by name
+    public static Map<String, Object> getMetrics(String namePrefix) {
+        Map<String, Object> metrics = new TreeMap<>();
+        histograms.forEach((name, histogram) -> {
+            if (name.startsWith(namePrefix))
+                metrics.put(name.substring(namePrefix.length()), histogram.getSummary());
+        });
+        return metrics;
+    }
+}
@@ -0,0 +1,169 @@
+package utility;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/// Polls a probe until its result satisfies a predicate or the time budget runs out.
+/// Waits between attempts grow exponentially with random jitter, so a ready resource is seen within milliseconds
+/// while a slow one is not hammered. Attempts and time waited are recorded per call site.
+public final class Poller<T> {
+    private static final Logger ltLogger = LogManager.getLogger(Poller.class);
+
+    private static final ConcurrentHashMap<String, CallSiteMetrics> callSiteMetrics = new ConcurrentHashMap<>();
+
+    private final String callSite;
+    private final Supplier<T> probe;
+    private Predicate<T> condition = value -> true;
+    private Duration initialDelay = Duration.ofMillis(250);
+    private Duration maxDelay = Duration.ofSeconds(5);
+    private double multiplier = 2.0;
+    private double jitter = 0.2;
+    private Duration timeout = Duration.ofSeconds(60);
+    private int maxAttempts = Integer.MAX_VALUE;
+
+    private static class CallSiteMetrics {
+        private final LongAdder polls = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder waitedMillis = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+    }
+
+    /// Outcome of one poll. `value` is the last probe result, which may not satisfy the condition when `isSuccess` is false.
+    public record Result<T>(T value, boolean isSuccess, int attempts, long waitedMillis, Exception lastException) {
+    }
+
+    private Poller(String callSite, Supplier<T> probe) {
+        this.callSite = callSite;
+        this.probe = probe;
+    }
+
+    /// Exceptions thrown by the probe count as a failed attempt and polling continues
+    public static <T> Poller<T> poll(String callSite, Supplier<T> probe) {
+        return new Poller<>(callSite, probe);
+    }
+
+    public Poller<T> until(Predicate<T> condition) {
+        this.condition = condition;
+        return this;
+    }
+
+    public Poller<T> initialDelay(Duration initialDelay) {
+        this.initialDelay = initialDelay;
+        return this;
+    }
+
+    public Poller<T> maxDelay(Duration maxDelay) {
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    public Poller<T> multiplier(double multiplier) {
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    /// Fraction of each delay which is randomised, e.g. 0.2 means +/- 20%
+    public Poller<T> jitter(double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    public Poller<T> timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public Poller<T> maxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    public Result<T> run() {
+        final long startNanos = System.nanoTime();
+        final long deadlineNanos = startNanos + timeout.toNanos();
+        long nextDelayMillis = initialDelay.toMillis();
+        long waitedMillis = 0;
+        int attempt = 0;
+        T value = null;
+        Exception lastException = null;
+        boolean isSuccess = false;
+
+        while (true) {
+            attempt++;
+            try {
+                value = probe.get();
+                lastException = null;
+                if (condition.test(value)) {
+                    isSuccess = true;
+                    break;
+                }
+            } catch (Exception e) {
+                lastException = e;
+                ltLogger.warn("{}: attempt {} failed with error: {}", callSite, attempt, e.getMessage());
+            }
+
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (attempt >= maxAttempts || remainingMillis <= 0)
+                break;
+
+            long sleepMillis = Math.min(applyJitter(nextDelayMillis), remainingMillis);
+            ltLogger.info("{}: condition not met on attempt {}, polling again in {} ms", callSite, attempt, sleepMillis);
+            try {
+                TimeUnit.MILLISECONDS.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lastException = e;
+                break;
+            }
+            waitedMillis += sleepMillis;
+            nextDelayMillis = Math.min((long) (nextDelayMillis * multiplier), maxDelay.toMillis());
+        }
+
+        recordMetrics(attempt, waitedMillis, isSuccess);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (isSuccess)
+            ltLogger.info("{}: condition met on attempt {} after {} ms", callSite, attempt, elapsedMillis);
+        else
+            ltLogger.warn("{}: condition not met after {} attempts and {} ms", callSite, attempt, elapsedMillis);
+        return new Result<>(value, isSuccess, attempt, waitedMillis, lastException);
+    }
+
+    private long applyJitter(long delayMillis) {
+        if (jitter <= 0 || delayMillis <= 0)
+            return delayMillis;
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Math.max(1, (long) (delayMillis * factor));
+    }
+
+    private void recordMetrics(int attempts, long waitedMillis, boolean isSuccess) {
+        CallSiteMetrics metrics = callSiteMetrics.computeIfAbsent(callSite, key -> new CallSiteMetrics());
+        metrics.polls.increment();
+        metrics.attempts.add(attempts);
+        metrics.waitedMillis.add(waitedMillis);
+        if (!isSuccess)
+            metrics.timeouts.increment();
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        callSiteMetrics.forEach((callSite, siteMetrics) -> {
+            Map<String, Object> siteMetricsMap = new LinkedHashMap<>();
+            siteMetricsMap.put("polls", siteMetrics.polls.sum());
+            siteMetricsMap.put("attempts", siteMetrics.attempts.sum());
+            siteMetricsMap.put("waited_ms", siteMetrics.waitedMillis.sum());
+            siteMetricsMap.put("timeouts", siteMetrics.timeouts.sum());
+            metrics.put(callSite, siteMetricsMap);
+        });
+        return metrics;
+    }
+}
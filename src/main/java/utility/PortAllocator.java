@@ -0,0 +1,97 @@
+package utility;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static utility.FrameworkConstants.TUNNEL_PORT_RANGE;
+
+/// Hands out local ports from a configured range to processes started by the framework, such as the tunnel info API.
+/// A port stays leased to its owner until released, so parallel tunnels of this JVM never get the same port, unlike
+/// binding port 0 and closing the socket before the process starts. Ports bound by other processes are skipped.
+/// Each JVM starts at a random offset in the range, to keep parallel JVMs on one machine apart.
+public final class PortAllocator {
+    private static final Logger ltLogger = LogManager.getLogger(PortAllocator.class);
+
+    private static final int[] PORT_RANGE = parsePortRange(System.getProperty(TUNNEL_PORT_RANGE, "20000-29999"));
+    private static final int RANGE_SIZE = PORT_RANGE[1] - PORT_RANGE[0] + 1;
+    private static final AtomicInteger nextOffset = new AtomicInteger(ThreadLocalRandom.current().nextInt(RANGE_SIZE));
+    /// Leased port to its owner
+    private static final ConcurrentHashMap<Integer, String> leases = new ConcurrentHashMap<>();
+
+    private static final LongAdder allocated = new LongAdder();
+    private static final LongAdder released = new LongAdder();
+    private static final LongAdder portsInUseSkipped = new LongAdder();
+
+    private PortAllocator() {
+    }
+
+    private static int[] parsePortRange(String portRange) {
+        String[] bounds = portRange.split("-");
+        int start = Integer.parseInt(bounds[0].trim());
+        int end = Integer.parseInt(bounds[1].trim());
+        if (start < 1024 || end > 65535 || start > end)
+            throw new IllegalArgumentException("Invalid " + TUNNEL_PORT_RANGE + ": " + portRange);
+        return new int[]{start, end};
+    }
+
+    /// Leases a free port to the owner, e.g. a tunnel name
+    public static int allocate(String owner) {
+        for (int attempt = 0; attempt < RANGE_SIZE; attempt++) {
+            int port = PORT_RANGE[0] + Math.floorMod(nextOffset.getAndIncrement(), RANGE_SIZE);
+            if (leases.putIfAbsent(port, owner) != null)
+                continue;
+            if (isPortFree(port)) {
+                allocated.increment();
+                ltLogger.info("Port {} leased to {}", port, owner);
+                return port;
+            }
+            leases.remove(port);
+            portsInUseSkipped.increment();
+        }
+        throw new IllegalStateException("No free port left in " + TUNNEL_PORT_RANGE + " " + PORT_RANGE[0] + "-" +
+                PORT_RANGE[1] + ", leased ports: " + leases.size());
+    }
+
+    /// Checks that no other process listens on the port, on the loopback and the wildcard address
+    public static boolean isPortFree(int port) {
+        for (InetSocketAddress address : new InetSocketAddress[]{
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), new InetSocketAddress(port)}) {
+            try (ServerSocket serverSocket = new ServerSocket()) {
+                serverSocket.setReuseAddress(false);
+                serverSocket.bind(address);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /// Releasing a port which is not leased does nothing
+    public static void release(int port) {
+        String owner = leases.remove(port);
+        if (owner != null) {
+            released.increment();
+            ltLogger.info("Port {} released by {}", port, owner);
+        }
+    }
+
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("allocated", allocated.sum());
+        metrics.put("released", released.sum());
+        metrics.put("ports_in_use_skipped", portsInUseSkipped.sum());
+        metrics.put("leased", leases.size());
+        return metrics;
+    }
+}
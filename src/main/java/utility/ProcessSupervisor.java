@@ -0,0 +1,195 @@
+package utility;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/// Runs a long-lived process, such as the tunnel binary, and supervises it by its PID.
+/// Stdout and stderr are drained concurrently on virtual threads, so a full pipe never blocks the process. The latest
+/// lines are kept in a bounded buffer, and optionally appended to a log file. Listeners are notified of every line
+/// containing a given text as it is read.
+public final class ProcessSupervisor implements AutoCloseable {
+    private static final Logger ltLogger = LogManager.getLogger(ProcessSupervisor.class);
+
+    /// Processes still running at shutdown are stopped, so that no tunnel outlives the run
+    private static final Set<ProcessSupervisor> runningProcesses = ConcurrentHashMap.newKeySet();
+
+    private final String name;
+    private final Process process;
+    private final RingBuffer<String> outputLines;
+    private final BufferedWriter logFileWriter;
+    private final List<LineListener> lineListeners = new CopyOnWriteArrayList<>();
+    private final List<Thread> drainThreads;
+
+    private record LineListener(String text, Consumer<String> listener) {
+    }
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> runningProcesses.forEach(ProcessSupervisor::close)));
+    }
+
+    private ProcessSupervisor(String name, Process process, int bufferCapacity, BufferedWriter logFileWriter) {
+        this.name = name;
+        this.process = process;
+        this.outputLines = new RingBuffer<>(bufferCapacity);
+        this.logFileWriter = logFileWriter;
+        this.drainThreads = List.of(startDrainThread("stdout", process.getInputStream()),
+                startDrainThread("stderr", process.getErrorStream()));
+        process.onExit().thenAccept(exitedProcess -> {
+            runningProcesses.remove(this);
+            ltLogger.info("Process {} with PID {} exited with code: {}", name, exitedProcess.pid(),
+                    exitedProcess.exitValue());
+        });
+    }
+
+    /// Starts the command without a shell. When `logFilePath` is given, the output is also appended to that file.
+    public static ProcessSupervisor start(String name, List<String> command, int bufferCapacity, String logFilePath) {
+        try {
+            BufferedWriter logFileWriter = logFilePath == null ? null : Files.newBufferedWriter(Path.of(logFilePath),
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Process process = new ProcessBuilder(command).start();
+            ProcessSupervisor supervisor = new ProcessSupervisor(name, process, bufferCapacity, logFileWriter);
+            runningProcesses.add(supervisor);
+            ltLogger.info("Process {} started with PID: {}", name, process.pid());
+            return supervisor;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to start process " + name, e);
+        }
+    }
+
+    private Thread startDrainThread(String streamName, InputStream stream) {
+        return Thread.ofVirtual().name(name + "-" + streamName).start(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    onLine(line);
+                }
+            } catch (IOException e) {
+                ltLogger.warn("Stopped reading {} of process {}: {}", streamName, name, e.getMessage());
+            }
+        });
+    }
+
+    private void onLine(String line) {
+        outputLines.add(line);
+        writeToLogFile(line);
+        for (LineListener lineListener : lineListeners) {
+            if (line.contains(lineListener.text())) {
+                try {
+                    lineListener.listener().accept(line);
+                } catch (RuntimeException e) {
+                    ltLogger.warn("Line listener of process {} failed: {}", name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeToLogFile(String line) {
+        if (logFileWriter == null)
+            return;
+        synchronized (logFileWriter) {
+            try {
+                logFileWriter.write(line);
+                logFileWriter.newLine();
+                logFileWriter.flush();
+            } catch (IOException e) {
+                ltLogger.warn("Unable to write output of process {} to log file: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /// Calls the listener for every line read from now on which contains the text
+    public void onLine(String text, Consumer<String> listener) {
+        lineListeners.add(new LineListener(text, listener));
+    }
+
+    /// Completes with the first line containing the text, including lines read before this call
+    public CompletableFuture<String> awaitLine(String text) {
+        CompletableFuture<String> lineFuture = new CompletableFuture<>();
+        onLine(text, lineFuture::complete);
+        outputLines.snapshot().stream().filter(line -> line.contains(text)).findFirst().ifPresent(lineFuture::complete);
+        return lineFuture;
+    }
+
+    /// Latest output lines of both streams, in the order they were read
+    public String getOutput() {
+        return String.join(System.lineSeparator(), outputLines.snapshot());
+    }
+
+    public long pid() {
+        return process.pid();
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    public CompletableFuture<Process> onExit() {
+        return process.onExit();
+    }
+
+    /// Asks the process and the processes it started to terminate, and kills them if they are still running after the
+    /// grace period
+    public void stop(Duration gracePeriod) {
+        ProcessHandle processHandle = process.toHandle();
+        List<ProcessHandle> descendants = processHandle.descendants().toList();
+        ltLogger.info("Stopping process {} with PID {} and {} child processes", name, processHandle.pid(),
+                descendants.size());
+        processHandle.destroy();
+        descendants.forEach(ProcessHandle::destroy);
+        try {
+            if (!process.waitFor(gracePeriod.toMillis(), TimeUnit.MILLISECONDS)) {
+                ltLogger.warn("Process {} didn't stop in {}, killing it", name, gracePeriod);
+                processHandle.destroyForcibly();
+                process.waitFor(gracePeriod.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            processHandle.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        descendants.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+        awaitDrainThreads(gracePeriod);
+        runningProcesses.remove(this);
+    }
+
+    private void awaitDrainThreads(Duration timeout) {
+        try {
+            for (Thread drainThread : drainThreads) {
+                drainThread.join(timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (logFileWriter != null) {
+            synchronized (logFileWriter) {
+                try {
+                    logFileWriter.close();
+                } catch (IOException e) {
+                    ltLogger.warn("Unable to close log file of process {}: {}", name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stop(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,41 @@
+package utility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// Thread safe buffer which keeps the latest `capacity` elements, older elements are overwritten and counted as dropped
+public class RingBuffer<T> {
+    private final Object[] elements;
+    private int nextIndex = 0;
+    private long totalAdded = 0;
+
+    public RingBuffer(int capacity) {
+        this.elements = new Object[Math.max(1, capacity)];
+    }
+
+    public synchronized void add(T element) {
+        elements[nextIndex] = element;
+        nextIndex = (nextIndex + 1) % elements.length;
+        totalAdded++;
+    }
+
+    /// Elements currently held, oldest first
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> snapshot() {
+        int size = size();
+        List<T> snapshot = new ArrayList<>(size);
+        int startIndex = totalAdded > elements.length ? nextIndex : 0;
+        for (int i = 0; i < size; i++) {
+            snapshot.add((T) elements[(startIndex + i) % elements.length]);
+        }
+        return snapshot;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(totalAdded, elements.length);
+    }
+
+    public synchronized long getDroppedCount() {
+        return Math.max(0, totalAdded - elements.length);
+    }
+}
@@ -0,0 +1,89 @@
+package utility;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/// Thread safe cache where concurrent lookups of the same key share one in-flight load, and loaded values expire
+/// after a TTL. A failed load is not cached, the next lookup loads again.
+public class SingleFlightCache<K, V> {
+    private final Logger ltLogger = LogManager.getLogger(SingleFlightCache.class);
+
+    private final String cacheName;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, CacheEntry<V>> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static class CacheEntry<V> {
+        private final CompletableFuture<V> value = new CompletableFuture<>();
+        private volatile long loadedAtNanos;
+
+        private boolean isExpired(long ttlNanos) {
+            return value.isDone() && System.nanoTime() - loadedAtNanos > ttlNanos;
+        }
+    }
+
+    public SingleFlightCache(String cacheName, long ttl, TimeUnit ttlUnit) {
+        this.cacheName = cacheName;
+        this.ttlNanos = ttlUnit.toNanos(ttl);
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        CacheEntry<V> newEntry = new CacheEntry<>();
+        CacheEntry<V> entry = entries.compute(key,
+                (k, existing) -> existing != null && !existing.isExpired(ttlNanos) ? existing : newEntry);
+
+        if (entry != newEntry) {
+            hits.increment();
+            ltLogger.debug("{} cache hit for key: {}", cacheName, key);
+            try {
+                return entry.value.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error)
+                    throw error;
+                throw e.getCause() instanceof RuntimeException runtimeException ?
+                        runtimeException :
+                        new RuntimeException(e.getCause());
+            }
+        }
+
+        misses.increment();
+        ltLogger.debug("{} cache miss for key: {}", cacheName, key);
+        try {
+            V value = loader.apply(key);
+            newEntry.loadedAtNanos = System.nanoTime();
+            newEntry.value.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Errors too, an entry left incomplete would block every later lookup of the key
+            entries.remove(key, newEntry);
+            newEntry.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("size", entries.size());
+        return metrics;
+    }
+}
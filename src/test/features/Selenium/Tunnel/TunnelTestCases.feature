@@ -1,4 +1,4 @@
-@tunnel_regression @tunnel_verification
+@tunnel_regression @tunnel_verification @shared_tunnel
 Feature: Automation of all tunnel test cases
 
   @tunnel_regression_1 @tunnel_basic_sanity